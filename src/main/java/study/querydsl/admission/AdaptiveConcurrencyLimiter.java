@@ -0,0 +1,169 @@
+package study.querydsl.admission;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 동시 처리 요청 수 제한 + 제한값 자동 조절 (AIMD)
+ *
+ * - 처리 중인 요청이 limit 미만이면 바로 통과
+ * - limit 이상이면 대기열(maxQueue)에서 maxWait 만큼 기다림, 대기열이 꽉 찼거나 시간이 지나면 거절
+ * - 요청이 targetLatency 안에 성공하면 limit를 조금씩 늘리고 (limit가 꽉 차 있을 때만, 요청 limit개마다 약 +1)
+ *   느리거나 실패하면 limit *= backoffRatio (targetLatency 마다 최대 한번 - 한번 느려진 요청들이 한꺼번에 줄이지 않게)
+ *
+ * limit을 넘는 요청은 DB 커넥션을 기다리며 쌓이는 대신 빨리 실패 -> 통과된 요청의 지연시간이 유지됨.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long lastDecreaseNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      long maxWaitMillis, long targetLatencyMillis, double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("minLimit=" + minLimit + ", maxLimit=" + maxLimit + ", backoffRatio=" + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+    }
+
+    public static AdaptiveConcurrencyLimiter of(AdmissionProperties properties) {
+        return new AdaptiveConcurrencyLimiter(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit(),
+                properties.getMaxQueue(), properties.getMaxWait().toMillis(), properties.getTargetLatency().toMillis(),
+                properties.getBackoffRatio());
+    }
+
+    /**
+     * true면 처리 후 반드시 release 호출
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                accepted.increment();
+                return true;
+            }
+            if (waiting >= maxQueue || maxWaitNanos <= 0) {
+                rejected.increment();
+                return false;
+            }
+
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                accepted.increment();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                return false;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param latencyNanos 처리 시간 (대기열에서 기다린 시간 제외)
+     * @param success 서버 오류 없이 끝났는지 - 실패도 과부하 신호로 봄
+     */
+    public void release(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= currentLimit() || waiting > 0;
+            inFlight--;
+
+            if (!success || latencyNanos > targetLatencyNanos) {
+                slow.increment();
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 처리하지 않고 돌려줌 (다음 단계에서 거절된 경우 등) - limit 조절 없음
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            return new Snapshot(currentLimit(), inFlight, waiting, accepted.sum(), rejected.sum(), slow.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * /diagnostics/admission 응답용
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Snapshot {
+        private final int limit;
+        private final int inFlight;
+        private final int waiting;
+        private final long accepted;
+        private final long rejected;
+        private final long slow;
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.admission;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * member.admission.enabled=false 이면 제한 없음
+ * 커넥션 풀 limiter(가상 스레드 모드)는 이 설정과 상관없이 VirtualThreadConfig에서 등록
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "member.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionProperties properties;
+
+    public AdmissionConfig(AdmissionProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public AdmissionControlInterceptor admissionControlInterceptor() {
+        return new AdmissionControlInterceptor(properties);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor())
+                .addPathPatterns(properties.getPaths())
+                .order(0); // 커넥션 풀 limiter(order 1)보다 먼저 - 엔드포인트에서 거절되면 풀 대기열까지 가지 않음
+    }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔드포인트별 동시 처리 제한 - 넘치면 컨트롤러(DB 조회)까지 가지 않고 503 + Retry-After
+ *
+ * limiter는 엔드포인트(매핑된 URL 패턴)마다 하나씩 - 한 엔드포인트가 몰려도 다른 엔드포인트는 영향 없음
+ * 모든 엔드포인트가 같이 쓰는 커넥션 풀 limiter는 ConnectionPoolLimitInterceptor (이 interceptor 다음에 실행)
+ */
+@Slf4j
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".PERMIT";
+
+    /**
+     * 뒤의 interceptor(ConnectionPoolLimitInterceptor)에서 거절된 요청 표시 - 처리한게 아니므로 엔드포인트 permit은 cancel
+     */
+    public static final String REJECTED = AdmissionControlInterceptor.class.getName() + ".REJECTED";
+
+    private final AdmissionProperties properties;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdmissionControlInterceptor(AdmissionProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String endpoint = endpoint(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(endpoint, key -> AdaptiveConcurrencyLimiter.of(properties));
+        if (!limiter.tryAcquire()) {
+            log.debug("request rejected. endpoint={}, limit={}", endpoint, limiter.snapshot().getLimit());
+            return reject(response);
+        }
+        request.setAttribute(PERMIT, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = (Permit) request.getAttribute(PERMIT);
+        if (permit == null) {
+            return;
+        }
+        request.removeAttribute(PERMIT);
+        if (request.getAttribute(REJECTED) != null) {
+            permit.limiter.cancel();
+            return;
+        }
+        boolean success = ex == null && response.getStatus() < 500; // 4xx(잘못된 요청)는 과부하 신호 아님
+        permit.limiter.release(System.nanoTime() - permit.startNanos, success);
+    }
+
+    /**
+     * 엔드포인트별 limiter 상태 (key : "GET /v1/members")
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    private boolean reject(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, properties.getRetryAfter().getSeconds())));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+        return false;
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private static class Permit {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+
+        Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnProperty(name = "member.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionController {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+    private final ObjectProvider<ConnectionPoolLimitInterceptor> connectionPoolLimitInterceptor;
+
+    /**
+     * 엔드포인트별 현재 limit, 처리 중/대기 중인 요청 수, 누적 통과/거절/느린 요청 수
+     * 가상 스레드 모드면 커넥션 풀 limiter도 (key : connectionPool)
+     */
+    @GetMapping("/diagnostics/admission")
+    public Map<String, AdaptiveConcurrencyLimiter.Snapshot> admission() {
+        Map<String, AdaptiveConcurrencyLimiter.Snapshot> result = new TreeMap<>();
+        admissionControlInterceptor.getLimiters().forEach((endpoint, limiter) -> result.put(endpoint, limiter.snapshot()));
+        connectionPoolLimitInterceptor.ifAvailable(interceptor -> result.put("connectionPool", interceptor.getLimiter().snapshot()));
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.admission;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.admission.* 설정 - 엔드포인트마다 같은 설정으로 limiter가 하나씩 생김
+ */
+@Getter
+@Setter
+@ConfigurationProperties("member.admission")
+public class AdmissionProperties {
+    private boolean enabled = true;
+    private List<String> paths = new ArrayList<>(List.of("/v1/members", "/v2/members", "/v3/members"));
+    private int initialLimit = 10; // 동시 처리 요청 수 시작값
+    private int minLimit = 2;
+    private int maxLimit = 50;
+    private int maxQueue = 50; // limit를 넘은 요청이 기다릴 수 있는 수, 넘으면 바로 503
+    private Duration maxWait = Duration.ofMillis(200); // 대기열에서 기다리는 최대 시간
+    private Duration targetLatency = Duration.ofMillis(100); // 이보다 느리면 limit 감소
+    private double backoffRatio = 0.9; // 감소시 limit *= backoffRatio
+    private Duration retryAfter = Duration.ofSeconds(1); // 503 응답의 Retry-After
+}
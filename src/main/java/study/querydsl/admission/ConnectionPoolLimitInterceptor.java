@@ -0,0 +1,58 @@
+package study.querydsl.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 모든 엔드포인트가 같이 쓰는 커넥션 풀 limiter - 넘치면 503 + Retry-After
+ *
+ * 엔드포인트별 admission control(AdmissionControlInterceptor)과 상관없이 등록됨 (VirtualThreadConfig).
+ * 둘 다 있으면 엔드포인트 limiter를 먼저 통과한 뒤 여기를 통과해야 함 - 여기서 거절되면 엔드포인트 permit은 limit 조절 없이 반환(REJECTED).
+ */
+@Slf4j
+public class ConnectionPoolLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = ConnectionPoolLimitInterceptor.class.getName() + ".PERMIT";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Duration retryAfter;
+
+    public ConnectionPoolLimitInterceptor(AdaptiveConcurrencyLimiter limiter, Duration retryAfter) {
+        this.limiter = limiter;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!limiter.tryAcquire()) {
+            log.debug("request rejected by connection pool limiter. uri={}", request.getRequestURI());
+            request.setAttribute(AdmissionControlInterceptor.REJECTED, Boolean.TRUE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.getSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+            return false;
+        }
+        request.setAttribute(PERMIT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long startNanos = (Long) request.getAttribute(PERMIT);
+        if (startNanos == null) {
+            return;
+        }
+        request.removeAttribute(PERMIT);
+        limiter.release(System.nanoTime() - startNanos, ex == null && response.getStatus() < 500);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import study.querydsl.repository.MemberCondition;
+
+/**
+ * /diagnostics/hot-conditions 응답 한 줄
+ * 실제 요청 횟수는 count - error 이상 count 이하
+ */
+@Getter
+public class HotCondition {
+    private final String username;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+    private final long count;
+    private final long error;
+    private final boolean hot; // 캐시에 들어갈 수 있는 조건
+
+    HotCondition(MemberCondition condition, long count, long error, boolean hot) {
+        this.username = condition.getUsername();
+        this.teamName = condition.getTeamName();
+        this.ageGoe = condition.getAgeGoe();
+        this.ageLoe = condition.getAgeLoe();
+        this.count = count;
+        this.error = error;
+        this.hot = hot;
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RestController
+public class HotConditionController {
+
+    private final HotConditionTracker hotConditionTracker;
+    private final MemberSearchCache memberSearchCache;
+
+    /**
+     * 요청이 많은 검색 조건 상위 k개 + 결과 캐시 상태
+     */
+    @GetMapping("/diagnostics/hot-conditions")
+    public Map<String, Object> hotConditions(@RequestParam(defaultValue = "20") int k) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("top", hotConditionTracker.top(k));
+        result.put("cache", memberSearchCache.stats());
+        return result;
+    }
+
+    /**
+     * 추적 횟수, 캐시 초기화
+     */
+    @DeleteMapping("/diagnostics/hot-conditions")
+    public void reset() {
+        hotConditionTracker.reset();
+        memberSearchCache.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberCondition;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 검색 조건별 요청 횟수 추적 (heavy hitters) - 자주 들어오는 조건이 무엇인지
+ *
+ * 조건은 MemberCondition으로 정규화해서 셈 (빈 문자열 = 조건 없음 -> 같은 조건)
+ * 메모리는 sketch-capacity개 카운터로 고정 (SpaceSaving)
+ */
+@Component
+public class HotConditionTracker {
+
+    private final long hotThreshold;
+    private final int capacity;
+    private final long decayWindow;
+    private SpaceSaving<MemberCondition> sketch;
+
+    public HotConditionTracker(@Value("${member.cache.sketch-capacity:256}") int capacity,
+                               @Value("${member.cache.decay-window:10000}") long decayWindow,
+                               @Value("${member.cache.hot-threshold:3}") long hotThreshold) {
+        this.capacity = capacity;
+        this.decayWindow = decayWindow;
+        this.hotThreshold = hotThreshold;
+        this.sketch = new SpaceSaving<>(capacity, decayWindow);
+    }
+
+    public synchronized long record(MemberCondition condition) {
+        return sketch.offer(condition);
+    }
+
+    /**
+     * 최소 보장 횟수가 hot-threshold 이상
+     */
+    public synchronized boolean isHot(MemberCondition condition) {
+        return sketch.guaranteed(condition) >= hotThreshold;
+    }
+
+    public synchronized long estimate(MemberCondition condition) {
+        return sketch.estimate(condition);
+    }
+
+    public synchronized List<HotCondition> top(int k) {
+        return sketch.top(k).stream()
+                .map(entry -> new HotCondition(entry.key, entry.count, entry.error, entry.count - entry.error >= hotThreshold))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized void reset() {
+        sketch = new SpaceSaving<>(capacity, decayWindow);
+    }
+}
@@ -0,0 +1,203 @@
+package study.querydsl.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.event.ChangeEvent;
+import study.querydsl.event.ChangeEventBus;
+import study.querydsl.repository.MemberCondition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 페이징 없는 회원 검색(searchByWhere) 결과 캐시 - hot 조건만 저장
+ *
+ * - 모든 요청의 조건을 HotConditionTracker에 기록, 자주 들어온 조건(hot)의 결과만 캐시에 넣음
+ *   캐시가 꽉 차면 캐시 안에서 가장 덜 hot한 조건보다 hot할 때만 교체 -> 한두번 들어온 조건이 캐시를 밀어내지 않음
+ * - 같은 조건이 없어도 더 넓은 조건이 캐시에 있으면(MemberCondition.covers) 그 결과를 메모리에서 걸러서 반환
+ * - Member/Team 변경 이벤트(ChangeEventBus)가 오면 영향 받을 수 있는 항목 삭제
+ * - 트랜잭션 안의 조회는 캐시를 거치지 않음 (커밋 안된 자기 변경이 보이는 결과를 공유하면 안되므로)
+ *
+ * 반환된 목록, DTO는 캐시와 공유되므로 수정하면 안됨
+ */
+@Component
+public class MemberSearchCache {
+
+    private final HotConditionTracker tracker;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxRows;
+
+    private final Map<MemberCondition, List<MemberTeamDto>> entries = new HashMap<>(); // this로 동기화
+    private long generation; // 변경 이벤트마다 +1 - 조회하는 동안 변경이 있었으면 캐시에 넣지 않음
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coveredHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public MemberSearchCache(HotConditionTracker tracker, ChangeEventBus changeEventBus,
+                             @Value("${member.cache.enabled:true}") boolean enabled,
+                             @Value("${member.cache.max-entries:64}") int maxEntries,
+                             @Value("${member.cache.max-rows:10000}") int maxRows) {
+        this.tracker = tracker;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        changeEventBus.subscribe(this::onChange);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition searchCondition, Supplier<List<MemberTeamDto>> loader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            bypassed.increment();
+            return loader.get();
+        }
+
+        MemberCondition condition = MemberCondition.compile(searchCondition);
+        tracker.record(condition);
+
+        List<MemberTeamDto> covering = null;
+        long loadGeneration;
+        synchronized (this) {
+            List<MemberTeamDto> cached = entries.get(condition);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            for (Map.Entry<MemberCondition, List<MemberTeamDto>> entry : entries.entrySet()) {
+                if (entry.getKey().covers(condition)) {
+                    covering = entry.getValue();
+                    break;
+                }
+            }
+            loadGeneration = generation;
+        }
+
+        if (covering != null) { // 필터링은 락 밖에서 - 캐시된 목록은 바뀌지 않음
+            coveredHits.increment();
+            return covering.stream().filter(condition).collect(Collectors.toUnmodifiableList());
+        }
+
+        misses.increment();
+        List<MemberTeamDto> result = loader.get();
+        admit(condition, result, loadGeneration);
+        return result;
+    }
+
+    private synchronized void admit(MemberCondition condition, List<MemberTeamDto> result, long loadGeneration) {
+        if (generation != loadGeneration || result.size() > maxRows || !tracker.isHot(condition)) {
+            return;
+        }
+
+        if (entries.size() >= maxEntries) {
+            MemberCondition coldest = null;
+            long coldestCount = Long.MAX_VALUE;
+            for (MemberCondition cached : entries.keySet()) {
+                long count = tracker.estimate(cached);
+                if (count < coldestCount) {
+                    coldest = cached;
+                    coldestCount = count;
+                }
+            }
+            if (coldestCount >= tracker.estimate(condition)) {
+                rejected.increment();
+                return;
+            }
+            entries.remove(coldest);
+            evicted.increment();
+        }
+        entries.put(condition, List.copyOf(result));
+        admitted.increment();
+    }
+
+    /**
+     * 커밋된 변경 - 회원 변경은 변경 전/후 값이 조건에 맞을 수 있는 항목만, 그 외(팀 변경, 벌크 연산)는 전체 삭제
+     */
+    private synchronized void onChange(List<ChangeEvent> events) {
+        generation++;
+        for (ChangeEvent event : events) {
+            if (event.getEntityType() == ChangeEvent.EntityType.TEAM) {
+                if (event.getChangeType() != ChangeEvent.ChangeType.INSERT) { // 새 팀은 회원이 없어서 결과에 영향 없음
+                    entries.clear();
+                    return;
+                }
+                continue;
+            }
+            if (event.getChangeType() == ChangeEvent.ChangeType.INVALIDATE
+                    || (event.getChangeType() == ChangeEvent.ChangeType.UPDATE && event.getPreviousState() == null)) {
+                entries.clear();
+                return;
+            }
+            entries.keySet().removeIf(condition -> mayMatch(condition, event.getState()) || mayMatch(condition, event.getPreviousState()));
+        }
+    }
+
+    /**
+     * 이벤트에는 teamName 대신 teamId만 있으므로 teamName 조건은 맞을 수 있다고 봄
+     */
+    private static boolean mayMatch(MemberCondition condition, Map<String, Object> state) {
+        if (state == null) {
+            return false;
+        }
+        if (condition.getUsername() != null && !condition.getUsername().equals(state.get("username"))) {
+            return false;
+        }
+        Object age = state.get("age");
+        if (age instanceof Integer) {
+            int value = (Integer) age;
+            if ((condition.getAgeGoe() != null && value < condition.getAgeGoe())
+                    || (condition.getAgeLoe() != null && value > condition.getAgeLoe())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(MemberSearchCondition condition) {
+        return entries.containsKey(MemberCondition.compile(condition));
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(enabled, entries.size(), maxEntries, hits.sum(), coveredHits.sum(), misses.sum(),
+                admitted.sum(), rejected.sum(), evicted.sum(), bypassed.sum());
+    }
+
+    /**
+     * 캐시 비우기 (통계 초기화 포함)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+        for (LongAdder counter : List.of(hits, coveredHits, misses, admitted, rejected, evicted, bypassed)) {
+            counter.reset();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Stats {
+        private final boolean enabled;
+        private final int entries;
+        private final int maxEntries;
+        private final long hits;
+        private final long coveredHits; // 더 넓은 조건의 캐시 결과를 걸러서 반환
+        private final long misses;
+        private final long admitted;
+        private final long rejected; // hot 하지만 캐시 안의 조건들보다 덜 hot 해서 못 들어감
+        private final long evicted;
+        private final long bypassed; // 캐시 꺼짐, 트랜잭션 안의 조회
+    }
+}
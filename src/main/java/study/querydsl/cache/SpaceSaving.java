@@ -0,0 +1,118 @@
+package study.querydsl.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 알고리즘 - 자주 나오는 키(heavy hitter) 상위 K개를 고정된 메모리(capacity개 카운터)로 추적
+ *
+ * - 추적 중인 키면 +1
+ * - 아니면 빈 카운터에 넣거나, 가장 작은 카운터를 빼앗음 (count = 뺏은 카운터 값 + 1, error = 뺏은 카운터 값)
+ * - 실제 횟수는 count - error 이상 count 이하. 실제 횟수가 전체의 1/capacity 보다 많은 키는 반드시 추적됨
+ *
+ * decayWindow번 기록할 때마다 모든 카운터를 절반으로 -> 오래전에 많았던 키보다 최근 키가 우선
+ * 동기화는 호출하는 쪽에서 (HotConditionTracker)
+ */
+class SpaceSaving<K> {
+
+    private final int capacity;
+    private final long decayWindow;
+    private final Map<K, Counter> counters;
+    private long offers;
+
+    SpaceSaving(int capacity, long decayWindow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.decayWindow = decayWindow;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * @return 기록 후 키의 추정 횟수
+     */
+    long offer(K key) {
+        if (decayWindow > 0 && ++offers % decayWindow == 0) {
+            decay();
+        }
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            return ++counter.count;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(1, 0));
+            return 1;
+        }
+
+        // 가장 작은 카운터를 빼앗음 - capacity가 크지 않으므로 선형 탐색
+        K minKey = null;
+        Counter min = null;
+        for (Map.Entry<K, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.count) {
+                minKey = entry.getKey();
+                min = entry.getValue();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new Counter(min.count + 1, min.count));
+        return min.count + 1;
+    }
+
+    /**
+     * 추적 중이 아니면 0
+     */
+    long estimate(K key) {
+        Counter counter = counters.get(key);
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * 최소 보장 횟수 (count - error)
+     */
+    long guaranteed(K key) {
+        Counter counter = counters.get(key);
+        return counter == null ? 0 : counter.count - counter.error;
+    }
+
+    List<Entry<K>> top(int k) {
+        List<Entry<K>> entries = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> entries.add(new Entry<>(key, counter.count, counter.error)));
+        entries.sort(Comparator.comparingLong((Entry<K> e) -> e.count).reversed());
+        return entries.subList(0, Math.min(k, entries.size()));
+    }
+
+    private void decay() {
+        counters.values().removeIf(counter -> {
+            counter.count /= 2;
+            counter.error /= 2;
+            return counter.count == 0;
+        });
+    }
+
+    private static class Counter {
+        long count;
+        long error;
+
+        Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    static class Entry<K> {
+        final K key;
+        final long count;
+        final long error;
+
+        Entry(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
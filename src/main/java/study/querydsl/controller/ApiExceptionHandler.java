@@ -0,0 +1,26 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydsl.repository.UnsupportedFieldException;
+import study.querydsl.repository.UnsupportedSortException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 레포지토리 예외 -> HTTP 응답 코드 (레포지토리는 HTTP를 모름)
+ * sendError로 넘겨서 응답 body는 스프링 부트 기본 에러 응답(/error)과 같음
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * 허용하지 않는 정렬, 필드 - 요청을 고쳐야 하는 경우
+     */
+    @ExceptionHandler({UnsupportedSortException.class, UnsupportedFieldException.class})
+    public void badRequest(RuntimeException e, HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+}
@@ -3,25 +3,52 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.dto.MemberImportResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCountMode;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberTeamField;
+import study.querydsl.repository.UnsupportedFieldException;
+import study.querydsl.service.MemberImportService;
+import study.querydsl.service.MemberJsonStreamer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository; // 순수 JPA 레포지토리 + querydsl
     private final MemberRepository memberRepository; // 스프링 데이터 JPA + querydsl
+    private final MemberImportService memberImportService;
+    private final MemberSearchCache memberSearchCache; // 자주 들어오는 조건만 결과 캐시
+    private final MemberJsonStreamer memberJsonStreamer;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.searchByWhere(condition);
+        return memberSearchCache.search(condition, () -> memberJpaRepository.searchByWhere(condition));
+    }
+
+    /**
+     * 대량 조회 - ex) /v1/members?stream=true
+     * 결과를 List로 모으지 않고 DB에서 읽는 대로 JSON으로 씀 (응답 형식은 위와 같음, 캐시 안씀)
+     */
+    @GetMapping(value = "/v1/members", params = {"stream=true", "!fields"})
+    public void searchMemberStreamV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        memberJsonStreamer.write(condition, response.getOutputStream());
     }
 
     /**
@@ -34,9 +61,64 @@ public class MemberController {
 
     /**
      * 복잡한 페이징
+     * count=CAPPED|ESTIMATED 면 전체 개수를 추정 (응답의 totalApproximate), 없으면 정확한 count
      */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(name = "count", required = false) MemberCountMode countMode){
+        if (countMode != null) {
+            return memberRepository.searchPageApproximate(condition, pageable, countMode);
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    /**
+     * 필요한 필드만 조회 - ex) /v1/members?fields=memberId,username
+     * fields 파라미터가 있으면 위의 메서드 대신 이쪽으로 매핑됨
+     */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchCondition condition, @RequestParam List<String> fields){
+        return memberRepository.searchFields(condition, MemberTeamField.of(fields));
+    }
+
+    /**
+     * stream=true 는 모든 필드를 씀 - fields와 같이 오면 400 (두 매핑에 모두 맞아서 모호한 매핑이 되지 않도록)
+     */
+    @GetMapping(value = "/v1/members", params = {"stream=true", "fields"})
+    public void searchMemberStreamFieldsV1() {
+        throw new UnsupportedFieldException("stream=true 와 fields 는 같이 쓸 수 없습니다");
+    }
+
+    /**
+     * 간단한 페이징 + 필요한 필드만 - searchMemberV2와 같이 전체 개수를 항상 셈
+     */
+    @GetMapping(value = "/v2/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV2(MemberSearchCondition condition, @RequestParam List<String> fields, Pageable pageable){
+        return memberRepository.searchPageFieldsSimple(condition, MemberTeamField.of(fields), pageable);
+    }
+
+    /**
+     * 복잡한 페이징 + 필요한 필드만 - searchMemberV3와 같은 count 규칙 (count=CAPPED|ESTIMATED 포함)
+     */
+    @GetMapping(value = "/v3/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV3(MemberSearchCondition condition, @RequestParam List<String> fields, Pageable pageable,
+                                                          @RequestParam(name = "count", required = false) MemberCountMode countMode){
+        if (countMode != null) {
+            return memberRepository.searchPageFields(condition, MemberTeamField.of(fields), pageable, countMode);
+        }
+        return memberRepository.searchPageFieldsComplex(condition, MemberTeamField.of(fields), pageable);
+    }
+
+    /**
+     * 회원 대량 등록 - body를 스트림으로 읽음 (@RequestBody로 받으면 전체가 메모리에 올라감)
+     */
+    @PostMapping(value = "/v1/members/import", consumes = "text/csv")
+    public MemberImportResult importMembersCsv(HttpServletRequest request) throws IOException {
+        return memberImportService.importCsv(request.getInputStream());
+    }
+
+    @PostMapping(value = "/v1/members/import", consumes = "application/x-ndjson")
+    public MemberImportResult importMembersNdjson(HttpServletRequest request) throws IOException {
+        return memberImportService.importNdjson(request.getInputStream());
+    }
 }
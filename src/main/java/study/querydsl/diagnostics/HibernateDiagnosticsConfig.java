@@ -0,0 +1,24 @@
+package study.querydsl.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * diagnostics.hibernate.enabled=true 일 때만 hibernate 통계 수집 (SessionFactory 통계 + 세션 이벤트 리스너)
+ * 꺼져 있으면 요청별 통계 필터, /diagnostics/hibernate 도 등록되지 않음
+ */
+@Configuration
+@ConditionalOnProperty(name = "diagnostics.hibernate.enabled", havingValue = "true")
+public class HibernateDiagnosticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, RequestStatsSessionListener.class.getName()); // 세션마다 등록되는 이벤트 리스너
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.diagnostics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@ConditionalOnProperty(name = "diagnostics.hibernate.enabled", havingValue = "true")
+public class HibernateDiagnosticsController {
+
+    private final HibernateStatsFilter hibernateStatsFilter;
+    private final Statistics statistics;
+
+    public HibernateDiagnosticsController(HibernateStatsFilter hibernateStatsFilter, EntityManagerFactory emf) {
+        this.hibernateStatsFilter = hibernateStatsFilter;
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics(); // HibernateDiagnosticsConfig가 generate_statistics를 켬
+    }
+
+    /**
+     * 엔드포인트별 누적 통계 + SessionFactory 전체 통계 요약
+     */
+    @GetMapping("/diagnostics/hibernate")
+    public Map<String, Object> hibernateStats() {
+        Map<String, Object> global = new LinkedHashMap<>();
+        global.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        global.put("statements", statistics.getPrepareStatementCount());
+        global.put("queries", statistics.getQueryExecutionCount());
+        global.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        global.put("slowestQueryMillis", statistics.getQueryExecutionMaxTime());
+        global.put("entitiesLoaded", statistics.getEntityLoadCount());
+        global.put("entitiesFetched", statistics.getEntityFetchCount()); // 지연 로딩 등으로 추가 조회된 엔티티
+        global.put("collectionsFetched", statistics.getCollectionFetchCount());
+        global.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        global.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        global.put("flushes", statistics.getFlushCount());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", new TreeMap<>(hibernateStatsFilter.getEndpointStats()));
+        result.put("global", global);
+        return result;
+    }
+
+    @DeleteMapping("/diagnostics/hibernate")
+    public void resetHibernateStats() {
+        hibernateStatsFilter.reset();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.diagnostics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트별 누적 통계 (여러 요청 스레드에서 동시에 더함)
+ */
+public class HibernateEndpointStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+    private final LongAdder entitiesLoaded = new LongAdder();
+    private final LongAdder collectionsFetched = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+
+    void add(HibernateRequestStats stats) {
+        requests.increment();
+        statements.add(stats.getStatements());
+        maxStatements.accumulate(stats.getStatements());
+        entitiesLoaded.add(stats.getEntitiesLoaded());
+        collectionsFetched.add(stats.getCollectionsFetched());
+        cacheHits.add(stats.getCacheHits());
+        cacheMisses.add(stats.getCacheMisses());
+        flushes.add(stats.getFlushes());
+        flushNanos.add(stats.getFlushNanos());
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public double getAvgStatements() {
+        long count = requests.sum();
+        return count == 0 ? 0 : (double) statements.sum() / count;
+    }
+
+    public long getMaxStatements() {
+        return maxStatements.get();
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded.sum();
+    }
+
+    public long getCollectionsFetched() {
+        return collectionsFetched.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public double getFlushMillis() {
+        return flushNanos.sum() / 1_000_000d;
+    }
+}
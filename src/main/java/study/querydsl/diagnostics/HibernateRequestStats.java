@@ -0,0 +1,99 @@
+package study.querydsl.diagnostics;
+
+/**
+ * 요청 1건 동안 hibernate가 한 일 (쿼리 수, 로딩한 엔티티 수 ...)
+ *
+ * 요청을 처리하는 스레드에 묶어두고(ThreadLocal), hibernate/p6spy 리스너들이 current()로 찾아서 기록한다.
+ * statement 수는 JdbcTemplate로 직접 실행한 쿼리도 포함 (RequestStatsJdbcListener).
+ * 요청 밖(스케줄러, 다른 스레드)에서 일어난 일은 기록되지 않음.
+ */
+public class HibernateRequestStats {
+
+    private static final ThreadLocal<HibernateRequestStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long entitiesLoaded;
+    private long collectionsFetched;
+    private long cacheHits;
+    private long cacheMisses;
+    private long flushes;
+    private long flushNanos;
+    private long flushStartedAt;
+
+    static HibernateRequestStats start() {
+        HibernateRequestStats stats = new HibernateRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 현재 스레드의 요청 통계, 요청 밖이면 null
+     */
+    static HibernateRequestStats current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted() {
+        statements++;
+    }
+
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    void collectionFetched() {
+        collectionsFetched++;
+    }
+
+    void cacheGet(boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+
+    void flushStart() {
+        flushStartedAt = System.nanoTime();
+    }
+
+    void flushEnd() {
+        if (flushStartedAt != 0) {
+            flushNanos += System.nanoTime() - flushStartedAt;
+            flushStartedAt = 0;
+        }
+        flushes++;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public long getCollectionsFetched() {
+        return collectionsFetched;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getFlushNanos() {
+        return flushNanos;
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 요청마다 hibernate 통계를 모아서 엔드포인트별로 누적
+ *
+ * diagnostics.hibernate.response-headers=true 이면 응답 헤더(X-Hibernate-*)로도 내려줌 (디버그용)
+ * 응답 본문을 쓰는 중(JSON 직렬화 중 지연 로딩 등)에 나간 쿼리까지 세려면 본문이 끝난 뒤 헤더를 붙여야 해서,
+ * 이때는 본문을 버퍼링(ContentCachingResponseWrapper)함.
+ * 단 스트리밍 응답(?stream=true)과 대량 등록(/members/import)은 본문 전체가 메모리에 쌓이므로 버퍼링하지 않음 -> 헤더 없이 누적 통계만.
+ */
+@Component
+@ConditionalOnProperty(name = "diagnostics.hibernate.enabled", havingValue = "true")
+public class HibernateStatsFilter extends OncePerRequestFilter {
+
+    private final Map<String, HibernateEndpointStats> endpointStats = new ConcurrentHashMap<>();
+    private final boolean responseHeaders;
+
+    public HibernateStatsFilter(@Value("${diagnostics.hibernate.response-headers:false}") boolean responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/diagnostics/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean bufferBody = responseHeaders && !isStreaming(request);
+        HttpServletResponse target = bufferBody ? new ContentCachingResponseWrapper(response) : response;
+        HibernateRequestStats stats = HibernateRequestStats.start();
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            HibernateRequestStats.end();
+            endpointStats.computeIfAbsent(endpoint(request), key -> new HibernateEndpointStats()).add(stats);
+            if (bufferBody) {
+                writeHeaders(stats, target);
+                ((ContentCachingResponseWrapper) target).copyBodyToResponse();
+            }
+        }
+    }
+
+    /**
+     * 엔드포인트별 누적 통계 (key : "GET /v1/members")
+     */
+    public Map<String, HibernateEndpointStats> getEndpointStats() {
+        return endpointStats;
+    }
+
+    public void reset() {
+        endpointStats.clear();
+    }
+
+    private boolean isStreaming(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/members/import") // 요청 본문을 파라미터로 파싱하지 않도록 URI 먼저
+                || "true".equals(request.getParameter("stream"));
+    }
+
+    private String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE); // /members/{id} 처럼 매핑된 패턴으로 묶음
+        return request.getMethod() + " " + (pattern != null ? pattern : "(unmapped)");
+    }
+
+    private void writeHeaders(HibernateRequestStats stats, HttpServletResponse response) {
+        response.setHeader("X-Hibernate-Statements", String.valueOf(stats.getStatements()));
+        response.setHeader("X-Hibernate-Entities-Loaded", String.valueOf(stats.getEntitiesLoaded()));
+        response.setHeader("X-Hibernate-Collections-Fetched", String.valueOf(stats.getCollectionsFetched()));
+        response.setHeader("X-Hibernate-Cache-Hits", String.valueOf(stats.getCacheHits()));
+        response.setHeader("X-Hibernate-Cache-Misses", String.valueOf(stats.getCacheMisses()));
+        response.setHeader("X-Hibernate-Flush-Millis", String.format("%.3f", stats.getFlushNanos() / 1_000_000d));
+    }
+}
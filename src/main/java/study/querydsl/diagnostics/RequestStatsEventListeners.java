@@ -0,0 +1,55 @@
+package study.querydsl.diagnostics;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 엔티티 로딩, 컬렉션 초기화 이벤트를 현재 요청 통계에 기록
+ * 세션 이벤트(RequestStatsSessionListener)에는 없는 정보라 hibernate 이벤트 리스너로 등록
+ */
+@Component
+@ConditionalOnProperty(name = "diagnostics.hibernate.enabled", havingValue = "true")
+public class RequestStatsEventListeners implements PostLoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory emf;
+
+    public RequestStatsEventListeners(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, this); // 기본 리스너 뒤에 추가
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.entityLoaded();
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.collectionFetched();
+        }
+    }
+}
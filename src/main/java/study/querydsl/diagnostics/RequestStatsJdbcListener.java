@@ -0,0 +1,27 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 현재 요청에서 실행된 jdbc statement 수를 기록 - p6spy 리스너 (p6spy-spring-boot-starter가 DataSource에 등록)
+ *
+ * hibernate 세션 이벤트로 세면 JdbcTemplate로 직접 실행하는 쿼리(스트리밍 조회, searchColumns, count=CAPPED)가 빠지므로
+ * DataSource 단에서 셈. batch 1번 = 1회 실행.
+ */
+@Component
+@ConditionalOnProperty(name = "diagnostics.hibernate.enabled", havingValue = "true")
+public class RequestStatsJdbcListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.statementExecuted();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.diagnostics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 세션 단위 2차 캐시 조회, flush 이벤트를 현재 요청 통계에 기록
+ * (jdbc 실행 수는 JdbcTemplate 쿼리까지 세도록 RequestStatsJdbcListener에서)
+ *
+ * hibernate.session.events.auto 설정(HibernateDiagnosticsConfig)으로 세션이 열릴 때마다 hibernate가 직접 생성함 (스프링 빈 아님)
+ */
+public class RequestStatsSessionListener extends BaseSessionEventListener {
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.cacheGet(hit);
+        }
+    }
+
+    @Override
+    public void flushStart() {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.flushStart();
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        HibernateRequestStats stats = HibernateRequestStats.current();
+        if (stats != null) {
+            stats.flushEnd();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberImportResult {
+    private final long rows; // 저장한 회원 수
+    private final int chunks; // 커밋한 트랜잭션(chunk) 수
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public MemberImportResult(long rows, int chunks, long elapsedNanos) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : rows * 1_000_000_000d / elapsedNanos;
+    }
+}
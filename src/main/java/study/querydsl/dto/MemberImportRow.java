@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor // NDJSON 역직렬화(Jackson)시 기본 생성자 필요
+@Data
+public class MemberImportRow {
+    // 대량 등록 한 줄 = 회원 1명 (팀은 이름으로 전달, 없으면 팀 없는 회원)
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberImportRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
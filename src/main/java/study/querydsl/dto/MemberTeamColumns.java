@@ -0,0 +1,166 @@
+package study.querydsl.dto;
+
+import java.util.Arrays;
+
+/**
+ * MemberTeamDto 목록의 컬럼형(primitive 배열) 버전
+ *
+ * List<MemberTeamDto>는 행마다 DTO 1개 + Long 박싱 객체들이 생기지만,
+ * 여기서는 컬럼별 배열에 값을 그대로 담고 팀은 (teamId, teamName) 사전에 한번만 담는다.
+ * add는 박싱 없는 primitive 인자 - JDBC ResultSet에서 읽은 값을 그대로 받음 (MemberTeamRowHandler와 같은 모양)
+ * 대량 조회 결과를 내부에서 가공할 때 사용. (JSON 응답용 아님)
+ */
+public class MemberTeamColumns {
+    private static final int NO_TEAM = -1;
+    private static final long NO_TEAM_ID = 0; // add의 teamId - 팀 없는 회원 (id는 시퀀스라 1부터)
+
+    private long[] memberIds;
+    private String[] usernames;
+    private int[] ages;
+    private int[] teamIndexes; // 팀 사전의 index, 팀 없으면 NO_TEAM
+    private int size;
+
+    // 팀 사전 - 팀 수 만큼만 커짐
+    private long[] teamIds = new long[8];
+    private String[] teamNames = new String[8];
+    private int teamCount;
+
+    // 팀 id -> 팀 사전 index (open addressing, Long 박싱 없음), id 0은 빈 칸
+    private long[] slotTeamIds = new long[16];
+    private int[] slotIndexes = new int[16];
+
+    public MemberTeamColumns() {
+        this(16);
+    }
+
+    public MemberTeamColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.memberIds = new long[capacity];
+        this.usernames = new String[capacity];
+        this.ages = new int[capacity];
+        this.teamIndexes = new int[capacity];
+    }
+
+    /**
+     * 팀 없는 회원이면 teamId 0, teamName null
+     */
+    public void add(long memberId, String username, int age, long teamId, String teamName) {
+        if (size == memberIds.length) {
+            grow();
+        }
+        memberIds[size] = memberId;
+        usernames[size] = username;
+        ages[size] = age;
+        teamIndexes[size] = teamId == NO_TEAM_ID ? NO_TEAM : teamIndex(teamId, teamName);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getMemberId(int row) {
+        checkRow(row);
+        return memberIds[row];
+    }
+
+    public String getUsername(int row) {
+        checkRow(row);
+        return usernames[row];
+    }
+
+    public int getAge(int row) {
+        checkRow(row);
+        return ages[row];
+    }
+
+    public boolean hasTeam(int row) {
+        checkRow(row);
+        return teamIndexes[row] != NO_TEAM;
+    }
+
+    /**
+     * 팀 없는 회원이면 0 - hasTeam()으로 먼저 확인
+     */
+    public long getTeamId(int row) {
+        checkRow(row);
+        int teamIndex = teamIndexes[row];
+        return teamIndex == NO_TEAM ? 0 : teamIds[teamIndex];
+    }
+
+    public String getTeamName(int row) {
+        checkRow(row);
+        int teamIndex = teamIndexes[row];
+        return teamIndex == NO_TEAM ? null : teamNames[teamIndex];
+    }
+
+    public int getTeamCount() {
+        return teamCount;
+    }
+
+    /**
+     * 필요한 행만 DTO로 변환
+     */
+    public MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(getMemberId(row), getUsername(row), getAge(row),
+                hasTeam(row) ? getTeamId(row) : null, getTeamName(row));
+    }
+
+    private int teamIndex(long teamId, String teamName) {
+        int mask = slotTeamIds.length - 1;
+        int slot = slot(teamId, mask);
+        while (slotTeamIds[slot] != NO_TEAM_ID) {
+            if (slotTeamIds[slot] == teamId) {
+                return slotIndexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (teamCount == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+            teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+        }
+        teamIds[teamCount] = teamId;
+        teamNames[teamCount] = StringInterner.TEAM_NAMES.intern(teamName); // 다른 조회 결과와도 같은 인스턴스 공유
+        slotTeamIds[slot] = teamId;
+        slotIndexes[slot] = teamCount;
+        teamCount++;
+        if (teamCount * 2 > slotTeamIds.length) { // 절반 넘게 차면 두배로
+            rehash(slotTeamIds.length * 2);
+        }
+        return teamCount - 1;
+    }
+
+    private void rehash(int capacity) {
+        slotTeamIds = new long[capacity];
+        slotIndexes = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < teamCount; index++) {
+            int slot = slot(teamIds[index], mask);
+            while (slotTeamIds[slot] != NO_TEAM_ID) {
+                slot = (slot + 1) & mask;
+            }
+            slotTeamIds[slot] = teamIds[index];
+            slotIndexes[slot] = index;
+        }
+    }
+
+    private static int slot(long teamId, int mask) {
+        long hash = teamId * 0x9E3779B97F4A7C15L; // 연속된 id가 이웃 칸에 몰리지 않게 섞음
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        int capacity = memberIds.length * 2;
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teamIndexes = Arrays.copyOf(teamIndexes, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+    }
+}
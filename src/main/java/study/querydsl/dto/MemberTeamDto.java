@@ -17,7 +17,7 @@ public class MemberTeamDto {
         this.username = username;
         this.age = age;
         this.teamId = teamId;
-        this.teamName = teamName;
+        this.teamName = StringInterner.TEAM_NAMES.intern(teamName); // 팀 이름은 종류가 적음 - 행마다 따로 생긴 문자열을 하나로
     }
 }
 
@@ -0,0 +1,50 @@
+package study.querydsl.dto;
+
+/**
+ * 종류가 적은 문자열(팀 이름 등)을 같은 인스턴스로 바꿔주는 고정 크기 테이블
+ *
+ * JDBC에서 꺼낸 문자열은 행마다 새 인스턴스 -> 팀이 몇 개뿐이어도 같은 팀 이름이 결과 행 수만큼 heap에 생김
+ * hash로 슬롯 하나를 정해서 같은 값이 있으면 그 인스턴스를 반환, 없으면 덮어씀
+ * - 크기 고정: 종류가 많은 값이 들어와도 메모리가 늘지 않음 (충돌하면 중복 제거를 못할 뿐, 값은 항상 같음)
+ * - String.intern()과 달리 JVM 문자열 테이블에 남지 않음
+ * - 락 없음: String은 불변이라 다른 스레드가 슬롯을 덮어써도 안전
+ */
+public final class StringInterner {
+
+    public static final StringInterner TEAM_NAMES = new StringInterner(1024, 64);
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * @param capacity 슬롯 수 (2의 거듭제곱으로 올림)
+     * @param maxLength 이보다 긴 문자열은 그대로 반환 (긴 값은 대부분 종류가 많은 값)
+     */
+    public StringInterner(int capacity, int maxLength) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.table = new String[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String cached = table[index];
+        if (cached != null && cached.equals(value)) {
+            return cached;
+        }
+        table[index] = value;
+        return value;
+    }
+}
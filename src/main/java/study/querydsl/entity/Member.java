@@ -1,6 +1,8 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -8,9 +10,18 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // JPA 기본 생성자 필수, PROTECTED까지 허용. 기본생성자 함부로 사용하지 않도록 방지.
 @Getter @Setter
 @Entity
+@Table(indexes = { // 정렬(MemberOrderResolver)에서 사용하는 인덱스, member_id는 같은 값끼리 순서 고정용
+        @Index(name = "idx_member_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_age", columnList = "age, member_id")
+})
+@NamedEntityGraph(name = Member.TEAM_GRAPH, attributeNodes = @NamedAttributeNode("team")) // team 함께 조회용
 public class Member {
+    public static final String TEAM_GRAPH = "Member.team";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.querydsl.entity.PooledSequenceGenerator", // allocation size는 설정에서
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
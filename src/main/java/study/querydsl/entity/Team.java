@@ -2,6 +2,8 @@ package study.querydsl.entity;
 
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -13,7 +15,10 @@ import java.util.List;
 @Entity
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.querydsl.entity.PooledSequenceGenerator", // allocation size는 설정에서
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
 
@@ -0,0 +1,81 @@
+package study.querydsl.event;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 엔티티 이벤트 없이 회원/팀 테이블을 바꾸는 SQL(JPQL 벌크 연산, 네이티브 SQL, StatelessSession) -> ChangeEventBus.invalidate
+ *
+ * hibernate가 실행하는 모든 SQL을 실행 직전에 확인(StatementInspector) - insert/update/delete 대상이 member, team 테이블이면
+ * 무효화 이벤트 기록 (트랜잭션 안이면 커밋 후 발행 -> MemberAgeHistogram은 다시 셀 때까지 stale, MemberSearchCache는 비움)
+ * flush 중에 실행되는 SQL은 엔티티 변경이라 EntityChangeListener가 이미 기록하므로 제외.
+ *
+ * JdbcTemplate 등 hibernate를 거치지 않는 SQL은 보이지 않음 -> MemberAgeHistogram의 reconcile로 맞춤
+ */
+@Component
+public class BulkWriteStatementInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|truncate\\s+table)\\s+([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL); // use_sql_comments의 /* */ 주석은 건너뜀
+    private static final Map<String, ChangeEvent.EntityType> TABLES = Map.of(
+            "member", ChangeEvent.EntityType.MEMBER,
+            "team", ChangeEvent.EntityType.TEAM
+    );
+
+    private final ChangeEventBus changeEventBus;
+
+    public BulkWriteStatementInspector(ChangeEventBus changeEventBus) {
+        this.changeEventBus = changeEventBus;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this); // 클래스 이름 대신 빈 인스턴스를 넘김
+    }
+
+    @Override
+    public String inspect(String sql) {
+        ChangeEvent.EntityType entityType = writtenTable(sql);
+        if (entityType != null && !isFlushing()) {
+            changeEventBus.invalidate(entityType);
+        }
+        return sql;
+    }
+
+    /**
+     * 회원/팀 테이블을 바꾸는 SQL이면 그 엔티티 타입, 아니면(select, 다른 테이블) null
+     */
+    static ChangeEvent.EntityType writtenTable(String sql) {
+        Matcher matcher = WRITE.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        String table = matcher.group(1).replace("\"", "").toLowerCase(Locale.ROOT);
+        return TABLES.get(table.substring(table.lastIndexOf('.') + 1)); // 스키마 이름 제외
+    }
+
+    /**
+     * 현재 트랜잭션(또는 open-in-view)의 EntityManager가 flush 중인지
+     * 다른 세션(직접 만든 EntityManager 등)의 flush는 벌크로 보임 -> 한번 더 무효화될 뿐 틀린 값은 남지 않음
+     */
+    private boolean isFlushing() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder) {
+                SessionImplementor session = ((EntityManagerHolder) resource).getEntityManager().unwrap(SessionImplementor.class);
+                return session.getPersistenceContextInternal().isFlushing();
+            }
+        }
+        return false;
+    }
+}
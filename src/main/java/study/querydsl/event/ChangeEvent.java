@@ -0,0 +1,40 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Member/Team 변경 이벤트 (커밋 후 발행)
+ *
+ * state : 변경 후 주요 필드 (Member : username, age, teamId / Team : name), 삭제면 삭제 직전 값
+ * previousState : 수정 전 값 (UPDATE만, 알 수 없으면 null)
+ * INVALIDATE : 벌크 연산처럼 어떤 행이 바뀌었는지 모르는 경우 - id, state 없음. 해당 엔티티 전체를 다시 읽어야 함
+ */
+@Getter
+@ToString
+public class ChangeEvent {
+
+    public enum EntityType {MEMBER, TEAM}
+
+    public enum ChangeType {INSERT, UPDATE, DELETE, INVALIDATE}
+
+    private final EntityType entityType;
+    private final ChangeType changeType;
+    private final Long id;
+    private final Map<String, Object> state;
+    private final Map<String, Object> previousState;
+
+    public ChangeEvent(EntityType entityType, ChangeType changeType, Long id, Map<String, Object> state, Map<String, Object> previousState) {
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.id = id;
+        this.state = state;
+        this.previousState = previousState;
+    }
+
+    public static ChangeEvent invalidate(EntityType entityType) {
+        return new ChangeEvent(entityType, ChangeType.INVALIDATE, null, null, null);
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 변경 이벤트 버스
+ *
+ * 트랜잭션 안에서 기록된 이벤트는 모아뒀다가 커밋된 후에 한번에(List) 발행하고, 롤백되면 버림.
+ * 트랜잭션 밖에서 기록되면 바로 발행.
+ * 버퍼는 트랜잭션마다 따로 - REQUIRES_NEW로 바깥 트랜잭션이 일시 중지되면 버퍼도 같이 unbind, 재개될 때 다시 bind
+ * (안쪽 트랜잭션의 이벤트가 바깥 버퍼에 섞여서 바깥이 롤백될 때 같이 버려지지 않도록)
+ * 구독자는 커밋한 스레드에서 호출되므로 오래 걸리는 일은 하지 않아야 함.
+ *
+ * DB에서 다시 읽어서 상태를 맞추는 구독자(MemberAgeHistogram)를 위해 이벤트를 기록한 트랜잭션 수를 셈
+ * - 읽는 동안 커밋됐지만 아직 발행 전인 트랜잭션이 있었는지 확인 (있으면 읽은 값 + 이벤트로 두번 반영될 수 있음)
+ */
+@Slf4j
+@Component
+public class ChangeEventBus {
+
+    private final List<Consumer<List<ChangeEvent>>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong startedTransactions = new AtomicLong(); // 이벤트를 기록한 트랜잭션 수 (누적)
+    private final AtomicInteger pendingTransactions = new AtomicInteger(); // 이벤트를 기록했고 아직 끝나지 않은 트랜잭션 수
+
+    public void subscribe(Consumer<List<ChangeEvent>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<List<ChangeEvent>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public void record(ChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(event));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<ChangeEvent> buffer = (List<ChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) { // 트랜잭션에서 처음 기록될 때 버퍼 생성, 커밋 후 발행 등록
+            List<ChangeEvent> newBuffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, newBuffer);
+            pendingTransactions.incrementAndGet(); // started보다 먼저 - 둘을 started, pending 순서로 읽으면 빠뜨리지 않음
+            startedTransactions.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(ChangeEventBus.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(ChangeEventBus.this, newBuffer);
+                }
+
+                @Override
+                public void afterCommit() {
+                    publish(newBuffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) { // afterCommit(발행) 다음, 롤백이어도 호출됨
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeEventBus.this);
+                    pendingTransactions.decrementAndGet();
+                }
+            });
+            buffer = newBuffer;
+        }
+        buffer.add(event);
+    }
+
+    /**
+     * 벌크 연산 등 - 엔티티 전체 무효화
+     */
+    public void invalidate(ChangeEvent.EntityType entityType) {
+        record(ChangeEvent.invalidate(entityType));
+    }
+
+    /**
+     * 이벤트를 기록한 트랜잭션 수 (누적) - 두 시점의 값이 다르면 그 사이에 변경을 커밋했을 수 있는 트랜잭션이 있음
+     */
+    public long getStartedTransactions() {
+        return startedTransactions.get();
+    }
+
+    /**
+     * 이벤트를 기록했지만 아직 끝나지 않은(커밋 전이거나 커밋 후 발행 전) 트랜잭션 수
+     */
+    public int getPendingTransactions() {
+        return pendingTransactions.get();
+    }
+
+    private void publish(List<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<ChangeEvent> batch = List.copyOf(events);
+        for (Consumer<List<ChangeEvent>> subscriber : subscribers) {
+            try {
+                subscriber.accept(batch);
+            } catch (RuntimeException e) { // 구독자 하나의 실패가 다른 구독자, 커밋한 요청에 영향 주지 않게
+                log.warn("change event subscriber failed. subscriber={}", subscriber, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.event;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * hibernate insert/update/delete 이벤트(flush 시점) -> ChangeEventBus (커밋 후 발행)
+ *
+ * 벌크 연산(execute()), 네이티브 SQL은 엔티티 이벤트가 발생하지 않음 -> BulkWriteStatementInspector가 무효화 이벤트 기록
+ */
+@Component
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ChangeEventBus changeEventBus;
+
+    public EntityChangeListener(EntityManagerFactory emf, ChangeEventBus changeEventBus) {
+        this.emf = emf;
+        this.changeEventBus = changeEventBus;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getEntity(), ChangeEvent.ChangeType.INSERT, event.getId(), event.getState(), null, event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getEntity(), ChangeEvent.ChangeType.UPDATE, event.getId(), event.getState(), event.getOldState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getEntity(), ChangeEvent.ChangeType.DELETE, event.getId(), event.getDeletedState(), null, event.getPersister());
+    }
+
+    /**
+     * 커밋 후 처리는 ChangeEventBus에서 하므로 hibernate의 post-commit 처리는 필요 없음
+     */
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(Object entity, ChangeEvent.ChangeType changeType, Object id, Object[] state, Object[] oldState, EntityPersister persister) {
+        ChangeEvent.EntityType entityType = entityType(entity);
+        if (entityType == null) { // Member, Team만
+            return;
+        }
+        String[] propertyNames = persister.getPropertyNames();
+        changeEventBus.record(new ChangeEvent(entityType, changeType, (Long) id,
+                keyFields(entityType, propertyNames, state),
+                keyFields(entityType, propertyNames, oldState)));
+    }
+
+    private ChangeEvent.EntityType entityType(Object entity) {
+        if (entity instanceof Member) {
+            return ChangeEvent.EntityType.MEMBER;
+        }
+        if (entity instanceof Team) {
+            return ChangeEvent.EntityType.TEAM;
+        }
+        return null;
+    }
+
+    /**
+     * 프로퍼티 값 배열에서 주요 필드만 꺼냄 - 연관관계(team)는 id로
+     */
+    private Map<String, Object> keyFields(ChangeEvent.EntityType entityType, String[] propertyNames, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < propertyNames.length; i++) {
+            String name = propertyNames[i];
+            if (entityType == ChangeEvent.EntityType.MEMBER) {
+                if (name.equals("username") || name.equals("age")) {
+                    fields.put(name, state[i]);
+                } else if (name.equals("team")) {
+                    fields.put("teamId", state[i] == null ? null : ((Team) state[i]).getId()); // 프록시여도 getId()는 초기화 안함
+                }
+            } else if (name.equals("name")) {
+                fields.put(name, state[i]);
+            }
+        }
+        return fields;
+    }
+}
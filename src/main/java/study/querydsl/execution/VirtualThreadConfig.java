@@ -0,0 +1,85 @@
+package study.querydsl.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.admission.AdaptiveConcurrencyLimiter;
+import study.querydsl.admission.ConnectionPoolLimitInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * member.execution.virtual-threads=true - 톰캣 요청 처리를 가상 스레드에서 (컨트롤러 -> 레포지토리 JDBC 호출까지 같은 가상 스레드)
+ *
+ * 요청 스레드 수 제한(server.tomcat.threads.max)이 없어지므로, 블로킹 JDBC 호출이 커넥션 풀 크기보다 많이 몰리면
+ * 풀에서 connectionTimeout 까지 기다리다 실패함 -> 커넥션 풀 크기를 최대 limit으로 하는 connectionPoolLimiter를 만들어
+ * DB를 쓰는 모든 엔드포인트(/v1/members/import, /diagnostics/** 포함)에 적용 (ConnectionPoolLimitInterceptor).
+ * member.admission.enabled와 상관없이 적용되고, admission control이 켜져 있으면 엔드포인트 limiter 다음에 통과.
+ * 가상 스레드는 대기 비용이 작아서 대기열은 크게.
+ *
+ * 실행 JVM이 Java 21 미만이면 경고만 남기고 기존 스레드풀 사용 (connectionPoolLimiter는 그대로 적용)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "member.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final int poolSize;
+    private final int poolMaxQueue;
+    private final Duration poolMaxWait;
+    private final Duration targetLatency;
+    private final Duration retryAfter;
+
+    public VirtualThreadConfig(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                               @Value("${member.execution.pool-max-queue:10000}") int poolMaxQueue,
+                               @Value("${member.execution.pool-max-wait:1s}") Duration poolMaxWait,
+                               @Value("${member.admission.target-latency:100ms}") Duration targetLatency,
+                               @Value("${member.admission.retry-after:1s}") Duration retryAfter) {
+        this.poolSize = poolSize;
+        this.poolMaxQueue = poolMaxQueue;
+        this.poolMaxWait = poolMaxWait;
+        this.targetLatency = targetLatency;
+        this.retryAfter = retryAfter;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        if (!VirtualThreads.isSupported()) {
+            log.warn("member.execution.virtual-threads=true 이지만 가상 스레드를 지원하지 않는 JVM 입니다(java {}). 톰캣 스레드풀을 사용합니다.",
+                    System.getProperty("java.version"));
+            return protocolHandler -> {
+            };
+        }
+        return protocolHandler -> {
+            ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            protocolHandler.setExecutor(executor);
+            log.info("tomcat requests run on virtual threads.");
+        };
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter connectionPoolLimiter() {
+        // 최대 = 풀 크기 (그 이상은 어차피 풀에서 기다림), 느려지면 풀 크기보다 작게 줄여서 DB 부하를 낮춤
+        return new AdaptiveConcurrencyLimiter(poolSize, 1, poolSize, poolMaxQueue,
+                poolMaxWait.toMillis(), targetLatency.toMillis(), 0.9);
+    }
+
+    @Bean
+    public ConnectionPoolLimitInterceptor connectionPoolLimitInterceptor() {
+        return new ConnectionPoolLimitInterceptor(connectionPoolLimiter(), retryAfter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(connectionPoolLimitInterceptor())
+                .addPathPatterns("/**")
+                .excludePathPatterns("/error", "/diagnostics/admission") // 에러 페이지 재요청, 과부하 중에도 limiter 상태는 볼 수 있게 (DB 안씀)
+                .order(1);
+    }
+}
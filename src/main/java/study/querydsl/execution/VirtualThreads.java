@@ -0,0 +1,45 @@
+package study.querydsl.execution;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 가상 스레드(Java 21+) 지원 - 빌드는 Java 11이라 리플렉션으로 호출
+ * 실행하는 JVM이 지원하지 않으면 isSupported() == false
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 작업마다 가상 스레드 하나 (풀링 없음)
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("가상 스레드를 지원하지 않는 JVM 입니다: " + System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * 현재 스레드가 가상 스레드인지 - 지원하지 않는 JVM이면 false
+     */
+    public static boolean isVirtual(Thread thread) {
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 개수가 추정값일 수 있는 Page - JSON 응답에 totalApproximate 필드 추가
+ * totalApproximate = true면 totalElements, totalPages는 정확하지 않음 (MemberCountMode 참고)
+ */
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+
+    public ApproximatePage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ApproximatePage)) {
+            return false;
+        }
+        return super.equals(obj) && totalApproximate == ((ApproximatePage<?>) obj).totalApproximate;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Boolean.hashCode(totalApproximate);
+    }
+}
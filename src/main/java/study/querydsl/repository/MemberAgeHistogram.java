@@ -0,0 +1,407 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.event.ChangeEvent;
+import study.querydsl.event.ChangeEventBus;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별, 나이별 회원 수를 메모리에 유지 - 나이/팀 조건만 있는 검색의 count를 SQL 없이 O(1)로
+ *
+ * - 팀마다 나이별 누적합 배열(prefix[i] = 나이 i 미만 회원 수) -> 나이 범위 count = 뺄셈 한번
+ * - ChangeEventBus의 커밋된 회원/팀 변경으로 갱신, reconcile-interval마다 DB에서 다시 세서 맞춤
+ * - 다시 셀 때는 항상 새 트랜잭션(커밋된 값만), 세는 동안 변경을 커밋했을 수 있는 트랜잭션이 있었으면 버림
+ * - 벌크 연산, 네이티브 SQL(INVALIDATE - BulkWriteStatementInspector), 변경 전 값을 모르는 수정이 오면
+ *   다시 셀 때까지 사용 안함(stale) -> 호출한 쪽에서 SQL로
+ * - 쓰기 트랜잭션 안에서는 사용 안함 (커밋 안된 자기 변경이 반영 안되어 있으므로)
+ * - count=ESTIMATED 추정(estimate)도 여기서 - stale이어도 마지막 값으로 답함
+ *
+ * hibernate를 거치지 않고 바뀐 데이터(JdbcTemplate 등)는 다음 reconcile까지 맞지 않을 수 있음
+ */
+@Slf4j
+@Component
+public class MemberAgeHistogram implements DisposableBean {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final ChangeEventBus changeEventBus;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final int maxAge;
+    private final ScheduledExecutorService scheduler;
+
+    // 아래는 모두 this로 동기화
+    private Snapshot snapshot;
+    private boolean stale = true; // 처음 셀 때까지는 stale
+    private boolean loaded; // 한번이라도 셌는지 (estimate용)
+    private long generation; // 변경 이벤트마다 +1 - 다시 세는 동안 변경이 있었으면 그 결과는 버림
+    private boolean retryScheduled;
+
+    public MemberAgeHistogram(EntityManager em, PlatformTransactionManager transactionManager, ChangeEventBus changeEventBus,
+                              @Value("${member.histogram.enabled:true}") boolean enabled,
+                              @Value("${member.histogram.max-age:150}") int maxAge,
+                              @Value("${member.histogram.reconcile-interval:60s}") Duration reconcileInterval) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.changeEventBus = changeEventBus;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 호출한 쪽 트랜잭션의 커밋 안된 변경을 세지 않도록
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.snapshot = new Snapshot();
+        if (!enabled) {
+            this.scheduler = null;
+            return;
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("member-histogram-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        changeEventBus.subscribe(this::onChange);
+        scheduler.scheduleWithFixedDelay(this::reconcile, 0, reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 조건에 맞는 회원 수 - 답할 수 없으면 empty (username 조건, stale, 쓰기 트랜잭션 안, 범위 밖 나이가 섞인 나이 조건)
+     */
+    public OptionalLong count(MemberCondition condition) {
+        if (!enabled || condition.getUsername() != null
+                || (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return OptionalLong.empty();
+        }
+
+        synchronized (this) {
+            if (stale) {
+                return OptionalLong.empty();
+            }
+            if (condition.getTeamName() == null) {
+                return count(snapshot.all, condition);
+            }
+
+            long total = 0;
+            for (Long teamId : snapshot.teamIdsByName.getOrDefault(condition.getTeamName(), List.of())) { // 팀 이름은 중복될 수 있음
+                TeamCounts counts = snapshot.countsByTeam.get(teamId);
+                if (counts == null) {
+                    continue;
+                }
+                OptionalLong teamCount = count(counts, condition);
+                if (teamCount.isEmpty()) {
+                    return teamCount;
+                }
+                total += teamCount.getAsLong();
+            }
+            return OptionalLong.of(total);
+        }
+    }
+
+    /**
+     * count=ESTIMATED 용 - count와 같은 값이지만 stale이거나 쓰기 트랜잭션 안이어도 마지막으로 센 값으로 답함 (그 사이의 변경은 반영 안됨)
+     * 범위 밖 나이는 나이 조건이 있으면 빼고 셈, 답할 수 없으면 empty (username 조건, 아직 한번도 세지 않음)
+     */
+    public OptionalLong estimate(MemberCondition condition) {
+        if (!enabled || condition.getUsername() != null) {
+            return OptionalLong.empty();
+        }
+
+        synchronized (this) {
+            if (!loaded) {
+                return OptionalLong.empty();
+            }
+            if (condition.getTeamName() == null) {
+                return OptionalLong.of(estimate(snapshot.all, condition));
+            }
+            long total = 0;
+            for (Long teamId : snapshot.teamIdsByName.getOrDefault(condition.getTeamName(), List.of())) {
+                TeamCounts counts = snapshot.countsByTeam.get(teamId);
+                if (counts != null) {
+                    total += estimate(counts, condition);
+                }
+            }
+            return OptionalLong.of(total);
+        }
+    }
+
+    private long estimate(TeamCounts counts, MemberCondition condition) {
+        if (condition.getAgeGoe() == null && condition.getAgeLoe() == null) {
+            return counts.total();
+        }
+        int from = condition.getAgeGoe() == null ? 0 : Math.max(condition.getAgeGoe(), 0);
+        int to = condition.getAgeLoe() == null ? maxAge : Math.min(condition.getAgeLoe(), maxAge);
+        return from > to ? 0 : counts.prefix[to + 1] - counts.prefix[from];
+    }
+
+    private OptionalLong count(TeamCounts counts, MemberCondition condition) {
+        if ((condition.getAgeGoe() != null || condition.getAgeLoe() != null) && counts.outOfRange != 0) {
+            return OptionalLong.empty(); // 범위 밖 나이는 나이별로 세지 않음
+        }
+        return OptionalLong.of(estimate(counts, condition));
+    }
+
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * DB에서 다시 세서 교체 - 버리고 false인 경우
+     * - 세는 동안 변경 이벤트가 발행됨
+     * - 시작할 때 끝나지 않은 쓰기 트랜잭션이 있었거나 세는 동안 새 쓰기 트랜잭션이 시작됨
+     *   (커밋된 행은 센 값에 들어가고, 나중에 발행되는 이벤트로 한번 더 반영될 수 있음)
+     */
+    public boolean rebuild() {
+        long startedBefore = changeEventBus.getStartedTransactions(); // started, pending 순서로 (ChangeEventBus 참고)
+        boolean pendingBefore = changeEventBus.getPendingTransactions() > 0;
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+
+        Snapshot loaded = readOnlyTx.execute(status -> load());
+        boolean concurrentWrite = pendingBefore || changeEventBus.getStartedTransactions() != startedBefore;
+
+        synchronized (this) {
+            if (generation != startGeneration || concurrentWrite) {
+                if (stale) {
+                    scheduleRetry();
+                }
+                return false;
+            }
+            if (!stale && !snapshot.all.equals(loaded.all)) {
+                log.info("member age histogram drift corrected: total {} -> {}", snapshot.all.total(), loaded.all.total());
+            }
+            snapshot = loaded;
+            stale = false;
+            this.loaded = true;
+            return true;
+        }
+    }
+
+    private void reconcile() {
+        synchronized (this) {
+            retryScheduled = false;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) { // 예외가 나가면 scheduleWithFixedDelay가 멈춤
+            log.warn("member age histogram rebuild failed", e);
+        }
+    }
+
+    private Snapshot load() {
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.age, member.count()) // 외래키 컬럼이라 team join 없음
+                .from(member)
+                .groupBy(member.team.id, member.age)
+                .fetch();
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch();
+
+        Map<Long, long[]> ageCountsByTeam = new HashMap<>(); // 팀 없는 회원은 key null
+        Map<Long, Long> outOfRangeByTeam = new HashMap<>();
+        for (Tuple row : rows) {
+            Long teamId = row.get(member.team.id);
+            int age = row.get(member.age);
+            long count = row.get(member.count());
+            if (age < 0 || age > maxAge) {
+                outOfRangeByTeam.merge(teamId, count, Long::sum);
+            } else {
+                ageCountsByTeam.computeIfAbsent(teamId, key -> new long[maxAge + 1])[age] += count;
+            }
+        }
+
+        Snapshot loaded = new Snapshot();
+        long[] allAgeCounts = new long[maxAge + 1];
+        long allOutOfRange = 0;
+        for (Map.Entry<Long, long[]> entry : ageCountsByTeam.entrySet()) {
+            long outOfRange = outOfRangeByTeam.getOrDefault(entry.getKey(), 0L);
+            loaded.countsByTeam.put(entry.getKey(), TeamCounts.of(entry.getValue(), outOfRange));
+            for (int age = 0; age <= maxAge; age++) {
+                allAgeCounts[age] += entry.getValue()[age];
+            }
+        }
+        for (Map.Entry<Long, Long> entry : outOfRangeByTeam.entrySet()) {
+            loaded.countsByTeam.computeIfAbsent(entry.getKey(), key -> TeamCounts.of(new long[maxAge + 1], entry.getValue()));
+            allOutOfRange += entry.getValue();
+        }
+        loaded.all = TeamCounts.of(allAgeCounts, allOutOfRange);
+
+        for (Tuple row : teams) {
+            loaded.addTeamName(row.get(team.id), row.get(team.name));
+        }
+        return loaded;
+    }
+
+    /**
+     * 커밋된 변경 반영 - 회원 추가/삭제/수정은 해당 나이 칸만 +-1
+     */
+    private synchronized void onChange(List<ChangeEvent> events) {
+        generation++;
+        if (stale) {
+            return; // 다시 셀 때 반영됨
+        }
+        for (ChangeEvent event : events) {
+            if (event.getChangeType() == ChangeEvent.ChangeType.INVALIDATE) {
+                markStale();
+                return;
+            }
+            if (event.getEntityType() == ChangeEvent.EntityType.TEAM) {
+                applyTeam(event);
+                continue;
+            }
+            switch (event.getChangeType()) {
+                case INSERT:
+                    add(event.getState(), 1);
+                    break;
+                case DELETE:
+                    add(event.getState(), -1);
+                    break;
+                default: // UPDATE
+                    if (event.getPreviousState() == null) {
+                        markStale();
+                        return;
+                    }
+                    add(event.getPreviousState(), -1);
+                    add(event.getState(), 1);
+            }
+            if (stale) {
+                return;
+            }
+        }
+    }
+
+    private void applyTeam(ChangeEvent event) {
+        if (event.getChangeType() != ChangeEvent.ChangeType.INSERT) {
+            snapshot.removeTeamName(event.getId());
+        }
+        if (event.getChangeType() != ChangeEvent.ChangeType.DELETE) {
+            snapshot.addTeamName(event.getId(), (String) event.getState().get("name"));
+        }
+    }
+
+    private void add(Map<String, Object> state, long delta) {
+        Object age = state == null ? null : state.get("age");
+        if (!(age instanceof Integer)) {
+            markStale();
+            return;
+        }
+        Long teamId = (Long) state.get("teamId");
+        snapshot.countsByTeam.computeIfAbsent(teamId, key -> new TeamCounts(maxAge)).add((Integer) age, delta);
+        snapshot.all.add((Integer) age, delta);
+    }
+
+    private void markStale() {
+        stale = true;
+        scheduler.execute(this::reconcile); // 다음 주기까지 기다리지 않고 바로 다시 셈
+    }
+
+    private void scheduleRetry() {
+        if (!retryScheduled) {
+            retryScheduled = true;
+            scheduler.schedule(this::reconcile, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private class Snapshot {
+        private final Map<Long, TeamCounts> countsByTeam = new HashMap<>(); // 팀 없는 회원은 key null
+        private final Map<String, List<Long>> teamIdsByName = new HashMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private TeamCounts all = new TeamCounts(maxAge);
+
+        void addTeamName(Long teamId, String name) {
+            teamNames.put(teamId, name);
+            teamIdsByName.computeIfAbsent(name, key -> new ArrayList<>(1)).add(teamId);
+        }
+
+        void removeTeamName(Long teamId) {
+            String name = teamNames.remove(teamId);
+            List<Long> ids = teamIdsByName.get(name);
+            if (ids != null) {
+                ids.remove(teamId);
+                if (ids.isEmpty()) {
+                    teamIdsByName.remove(name);
+                }
+            }
+        }
+    }
+
+    private static class TeamCounts {
+        private final long[] prefix; // prefix[i] = 나이 i 미만 회원 수 (0 <= 나이 <= maxAge), 길이 maxAge + 2
+        private long outOfRange; // 나이가 0 미만이거나 maxAge 초과인 회원 수
+
+        TeamCounts(int maxAge) {
+            this.prefix = new long[maxAge + 2];
+        }
+
+        static TeamCounts of(long[] ageCounts, long outOfRange) {
+            TeamCounts counts = new TeamCounts(ageCounts.length - 1);
+            for (int age = 0; age < ageCounts.length; age++) {
+                counts.prefix[age + 1] = counts.prefix[age] + ageCounts[age];
+            }
+            counts.outOfRange = outOfRange;
+            return counts;
+        }
+
+        /**
+         * 나이 age 이후의 누적합을 모두 갱신 - O(maxAge), 변경 이벤트 한 건에 한번
+         */
+        void add(int age, long delta) {
+            if (age < 0 || age >= prefix.length - 1) {
+                outOfRange += delta;
+                return;
+            }
+            for (int i = age + 1; i < prefix.length; i++) {
+                prefix[i] += delta;
+            }
+        }
+
+        long total() {
+            return prefix[prefix.length - 1] + outOfRange;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TeamCounts)) return false;
+            TeamCounts that = (TeamCounts) o;
+            return outOfRange == that.outOfRange && Arrays.equals(prefix, that.prefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(prefix) + Long.hashCode(outOfRange);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.Objects;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition을 한번 해석(compile)해서
+ * - DB 조회용 querydsl 조건 (where)
+ * - 메모리 필터링용 java.util.function.Predicate<MemberTeamDto> (test)
+ * 두 가지로 같은 의미의 조건을 제공
+ *
+ * 빈 문자열, null 조건은 무시하는 규칙(hasText)도 여기서 한번만 처리함.
+ * 캐시된 결과를 다시 DB 조회 없이 좁힐 때 사용 (covers로 포함 관계 확인 후 test로 필터링)
+ */
+public final class MemberCondition implements java.util.function.Predicate<MemberTeamDto> {
+
+    private static final MemberCondition ALL = new MemberCondition(null, null, null, null);
+
+    private final String username;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+
+    // test()에서 박싱 없이 비교하려고 미리 풀어둠
+    private final int minAge;
+    private final int maxAge;
+
+    private MemberCondition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        this.username = username;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+        this.minAge = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+        this.maxAge = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+    }
+
+    public static MemberCondition compile(MemberSearchCondition condition) {
+        if (condition == null) {
+            return ALL;
+        }
+        return new MemberCondition(
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+
+    /**
+     * querydsl where절 파라미터 - null인 조건은 querydsl이 무시
+     */
+    public Predicate[] where() {
+        return new Predicate[]{
+                usernameEq(username),
+                teamNameEq(teamName),
+                ageGoe(ageGoe),
+                ageLoe(ageLoe)
+        };
+    }
+
+    /**
+     * 벌크 update/delete용 - join을 쓸 수 없으므로 teamName 조건은 서브쿼리로
+     */
+    public Predicate[] bulkWhere() {
+        return new Predicate[]{
+                usernameEq(username),
+                teamName != null ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(teamName))) : null,
+                ageGoe(ageGoe),
+                ageLoe(ageLoe)
+        };
+    }
+
+    /**
+     * 조건 전체를 and로 묶은 하나의 조건, 조건이 없으면 null
+     */
+    public Predicate toPredicate() {
+        return ExpressionUtils.allOf(where());
+    }
+
+    /**
+     * teamName 조건은 team join이 필요함
+     */
+    public boolean needsTeamJoin() {
+        return teamName != null;
+    }
+
+    /**
+     * 메모리 필터링 - where()와 같은 의미, 객체 생성 없음
+     */
+    @Override
+    public boolean test(MemberTeamDto dto) {
+        if (username != null && !username.equals(dto.getUsername())) {
+            return false;
+        }
+        if (teamName != null && !teamName.equals(dto.getTeamName())) {
+            return false;
+        }
+        int age = dto.getAge();
+        return age >= minAge && age <= maxAge;
+    }
+
+    /**
+     * narrower의 결과가 모두 이 조건의 결과에 포함되는지
+     * true면 이 조건의 결과를 narrower로 test 해서 narrower의 결과를 얻을 수 있음
+     */
+    public boolean covers(MemberCondition narrower) {
+        return (username == null || username.equals(narrower.username))
+                && (teamName == null || teamName.equals(narrower.teamName))
+                && minAge <= narrower.minAge
+                && narrower.maxAge <= maxAge;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public Integer getAgeGoe() {
+        return ageGoe;
+    }
+
+    public Integer getAgeLoe() {
+        return ageLoe;
+    }
+
+    /**
+     * where절 파라미터에 사용되는 조건식을 반환하는 함수들
+     * 반환 타입이 Predicate(interface)보다는 BooleanExpression이 낫다! -> 그래야 나중에 조립 가능
+     */
+    public static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null; // 바로 team.name
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MemberCondition)) return false;
+        MemberCondition that = (MemberCondition) o;
+        return Objects.equals(username, that.username)
+                && Objects.equals(teamName, that.teamName)
+                && Objects.equals(ageGoe, that.ageGoe)
+                && Objects.equals(ageLoe, that.ageLoe);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(username, teamName, ageGoe, ageLoe);
+    }
+
+    @Override
+    public String toString() {
+        return "MemberCondition(username=" + username + ", teamName=" + teamName + ", ageGoe=" + ageGoe + ", ageLoe=" + ageLoe + ")";
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.repository;
+
+/**
+ * 페이징의 전체 개수(total) 계산 방식
+ * 마지막 페이지인게 확실하면(결과가 페이지 크기보다 적음) 모든 방식에서 count 없이 정확한 값
+ */
+public enum MemberCountMode {
+    /**
+     * count 쿼리 - 조건에 맞는 행 전체를 셈
+     */
+    EXACT,
+
+    /**
+     * DB 안에서 최대 (cap + 1)행까지만 셈 (select count(*) from (select 1 ... limit cap + 1)) - cap 이하면 정확한 값
+     * cap을 넘으면 totalElements = cap + 1, totalApproximate = true (그 이상 있다는 의미)
+     * 요청한 페이지가 cap보다 뒤쪽이면 그 페이지 끝 + 1행까지 셈 (offset + size + 1) - 페이지를 읽는 만큼만 읽고 전체를 세지 않음
+     */
+    CAPPED,
+
+    /**
+     * 팀/나이별 회원 수(MemberAgeHistogram)의 마지막으로 센 값으로 추정, 쿼리 없음 - totalApproximate = true
+     * 히스토그램으로 알 수 없는 조건(username), 히스토그램이 꺼져 있거나 아직 세지 않았으면 CAPPED로 계산
+     */
+    ESTIMATED
+}
@@ -2,10 +2,19 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -16,8 +25,14 @@ import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
@@ -25,13 +40,17 @@ import static study.querydsl.entity.QTeam.*;
 
 @Repository // @Transactional없어서 Service단에서 붙여주거나, 이 Repository에 추가 필요함!!
 public class MemberJpaRepository {
+    public static final int DEFAULT_EXPORT_FETCH_SIZE = 1000;
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberTeamJdbcReader rowReader;
 
 
-    public MemberJpaRepository(EntityManager em) { // 생성자에서 em injection하면 스프링에서 알아서 injection 해줌
+    public MemberJpaRepository(EntityManager em, MemberTeamJdbcReader rowReader) { // 생성자에서 em injection하면 스프링에서 알아서 injection 해줌
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.rowReader = rowReader;
     }
 
     /**
@@ -50,7 +69,7 @@ public class MemberJpaRepository {
     }
 
     /**
-     * 회원 전체 조회
+     * 회원 전체 조회 - 전체를 한번에 영속성 컨텍스트에 올림 (대량이면 forEachChunk 사용)
      */
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class)
@@ -59,9 +78,154 @@ public class MemberJpaRepository {
 
     // querydsl 버전
     public List<Member> findAll_Querydsl(){
-        return queryFactory
-                .selectFrom(member)
-                .fetch();
+        return findAll_Querydsl(MemberLoadOptions.lazy());
+    }
+
+    // team 로딩 방식 지정
+    public List<Member> findAll_Querydsl(MemberLoadOptions options){
+        JPAQuery<Member> query = queryFactory.selectFrom(member);
+        if (options.getTeamLoading() == MemberLoadOptions.TeamLoading.FETCH_JOIN) {
+            query.leftJoin(member.team, team).fetchJoin();
+        }
+        return fetchMembers(query, options);
+    }
+
+    /**
+     * 회원 전체를 size명씩 나눠서 consumer에 넘김 - findAll()과 달리 메모리에는 chunk 하나만
+     */
+    public long forEachChunk(int size, Consumer<List<Member>> consumer){
+        return forEachChunk(null, size, MemberLoadOptions.lazy(), consumer);
+    }
+
+    /**
+     * 대량 처리(배치)용 - id 구간으로 나눠서 조회 (where id > 직전 chunk의 마지막 id order by id limit size)
+     *
+     * offset 페이징과 달리 뒤로 갈수록 느려지지 않고(pk 인덱스로 바로 시작 위치를 찾음), 처리 중에 행이 추가/삭제돼도 건너뛰거나 두번 읽지 않음.
+     * chunk마다 consumer 호출 후 flush + clear -> 영속성 컨텍스트에는 항상 chunk 하나만 있으므로 전체 크기와 상관없이 메모리 일정.
+     * 트랜잭션 안에서 호출하면 consumer에서 수정한 내용은 chunk마다 flush됨. 대신 호출 전에 영속 상태였던 엔티티도 같이 준영속이 됨.
+     * consumer가 끝난 chunk의 엔티티는 준영속 상태 -> 다음 chunk에서 쓰지 말 것
+     * @return 처리한 회원 수
+     */
+    public long forEachChunk(MemberSearchCondition condition, int size, MemberLoadOptions options, Consumer<List<Member>> consumer){
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        MemberCondition compiled = MemberCondition.compile(condition);
+        Long lastId = null;
+        long count = 0;
+        while (true) {
+            JPAQuery<Member> query = queryFactory.selectFrom(member);
+            if (options.getTeamLoading() == MemberLoadOptions.TeamLoading.FETCH_JOIN) {
+                query.leftJoin(member.team, team).fetchJoin();
+            } else if (compiled.needsTeamJoin()) {
+                query.leftJoin(member.team, team);
+            }
+            List<Member> chunk = fetchMembers(query
+                    .where(compiled.where())
+                    .where(lastId == null ? null : member.id.gt(lastId)) // 첫 chunk는 조건 없음
+                    .orderBy(member.id.asc())
+                    .limit(size), options);
+            if (chunk.isEmpty()) {
+                return count;
+            }
+
+            lastId = chunk.get(chunk.size() - 1).getId();
+            consumer.accept(chunk);
+            count += chunk.size();
+
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                em.flush(); // clear 전에 consumer의 변경 반영
+            }
+            em.clear();
+            if (chunk.size() < size) {
+                return count; // 마지막 chunk - 빈 chunk 조회 쿼리 생략
+            }
+        }
+    }
+
+    /**
+     * 회원 전체 내보내기 - findAll()과 달리 한 건씩 읽어서 consumer에 넘김
+     */
+    public long exportAll(Consumer<Member> consumer){
+        return export(null, DEFAULT_EXPORT_FETCH_SIZE, consumer);
+    }
+
+    /**
+     * 대량 읽기(내보내기, 배치)용 - StatelessSession + scroll(FORWARD_ONLY)
+     *
+     * 영속성 컨텍스트를 거치지 않음 -> 1차 캐시, 스냅샷, dirty checking 없이 읽은 행은 consumer가 끝나면 GC 대상.
+     * fetchSize : JDBC 드라이버가 한번에 가져오는 행 수 (메모리 <-> 왕복 횟수)
+     * consumer가 받는 Member는 영속 상태가 아님(수정해도 반영 안됨), 지연 로딩 불가라서 team은 fetch join으로 같이 조회.
+     * 트랜잭션 안에서 호출되면 그 트랜잭션의 커넥션을 같이 사용, 밖이면 커넥션을 따로 열어서 읽기 전용 트랜잭션으로 조회.
+     */
+    public long export(MemberSearchCondition condition, int fetchSize, Consumer<Member> consumer){
+        return scroll(session -> new HibernateQuery<Void>(session) // querydsl의 hibernate용 쿼리 - StatelessSession 지원
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(MemberCondition.compile(condition).where()), fetchSize, consumer);
+    }
+
+    /**
+     * export와 달리 엔티티, DTO 없이 컬럼 값만 handler에 넘김 (JSON 스트리밍 응답 등)
+     * JDBC ResultSet에서 바로 읽음 - 행마다 Object[], Tuple, 박싱 객체를 만들지 않음 (MemberTeamJdbcReader)
+     */
+    public long exportRows(MemberSearchCondition condition, int fetchSize, MemberTeamRowHandler handler){
+        return rowReader.read(MemberCondition.compile(condition), fetchSize, handler);
+    }
+
+    /**
+     * StatelessSession으로 query를 scroll(FORWARD_ONLY) 하면서 한 행씩 consumer에 넘김
+     * 트랜잭션 안에서 호출되면 그 트랜잭션의 커넥션을 같이 사용, 밖이면 커넥션을 따로 열어서 읽기 전용 트랜잭션으로 조회.
+     * (StatelessSession 트랜잭션은 보통의 읽기/쓰기 트랜잭션이라 커넥션을 직접 read-only로 바꿈)
+     */
+    @SuppressWarnings("unchecked")
+    private <T> long scroll(Function<StatelessSession, HibernateQuery<T>> query, int fetchSize, Consumer<T> consumer){
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction) {
+            em.flush(); // 아직 flush 안된 변경도 조회되게 (JPQL 실행 전 자동 flush와 같게)
+        }
+        StatelessSession session = inTransaction
+                ? sessionFactory.openStatelessSession(em.unwrap(SessionImplementor.class).connection())
+                : sessionFactory.openStatelessSession();
+        Transaction tx = inTransaction ? null : session.beginTransaction(); // 커서 방식 fetch size는 autocommit off일 때만 동작하는 DB가 있음(PostgreSQL)
+
+        ScrollableResults results = null;
+        try {
+            if (tx != null) {
+                setReadOnly((SharedSessionContractImplementor) session);
+            }
+            results = query.apply(session)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+
+            long count = 0;
+            while (results.next()) {
+                consumer.accept((T) results.get(0)); // select절이 여러 개면 querydsl이 Tuple로 변환해서 0번에 담아줌
+                count++;
+            }
+            return count;
+        } finally {
+            if (results != null) {
+                results.close();
+            }
+            if (tx != null && tx.isActive()) {
+                tx.commit(); // 읽기만 했으므로 실패해도 commit으로 정리
+            }
+            session.close(); // 넘겨받은 커넥션은 닫지 않음
+        }
+    }
+
+    /**
+     * 직접 연 커넥션만 - 반납할 때 커넥션 풀(Hikari)이 read-only 설정을 원래대로 돌려놓음
+     */
+    private static void setReadOnly(SharedSessionContractImplementor session) {
+        try {
+            session.connection().setReadOnly(true);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not set connection read-only");
+        }
     }
 
     /**
@@ -131,12 +295,7 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
+                .where(MemberCondition.compile(condition).where()) // where절 파라미터 사용
                 .fetch();
     }
 
@@ -146,35 +305,88 @@ public class MemberJpaRepository {
      * MemberTeamDto말고 Member객체를 반환
      */
     public List<Member> searchByWhere_returnEntity(MemberSearchCondition condition){
-        return queryFactory
+        return searchByWhere_returnEntity(condition, MemberLoadOptions.lazy());
+    }
+
+    // team 로딩 방식 지정
+    public List<Member> searchByWhere_returnEntity(MemberSearchCondition condition, MemberLoadOptions options){
+        JPAQuery<Member> query = queryFactory
                 .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 함수들 재사용
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
-                .fetch();
+                .leftJoin(member.team, team);
+        if (options.getTeamLoading() == MemberLoadOptions.TeamLoading.FETCH_JOIN) {
+            query.fetchJoin(); // 바로 앞의 join을 fetch join으로
+        }
+        return fetchMembers(query
+                .where(MemberCondition.compile(condition).where()), options); // where절 파라미터 사용
     }
 
     /**
-     * where절 파라미터에 사용되는 조건식을 반환하는 함수들
-     * 큰 장점 : 재사용 가능!!!
+     * 벌크 수정 - 조건에 맞는 회원 나이에 amount 더하기
+     * 벌크 연산은 영속성 컨텍스트, 엔티티 이벤트를 거치지 않으므로 영속성 컨텍스트 초기화
+     * (회원 전체 무효화 이벤트는 BulkWriteStatementInspector가 SQL을 보고 기록)
      */
-    private BooleanExpression usernameEq(String username) { // 반환 타입이 Predicate(interface)보다는 BooleanExpression이 낫다! -> 그래야 나중에 조립 가능
-        return hasText(username) ?  member.username.eq(username) : null;
+    public long bulkAddAge(MemberSearchCondition condition, int amount) {
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(MemberCondition.compile(condition).bulkWhere())
+                .execute();
+
+        em.clear();
+        return count;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ?  team.name.eq(teamName) : null; // 바로 team.name
+    /**
+     * 벌크 삭제
+     */
+    public long bulkDelete(MemberSearchCondition condition) {
+        long count = queryFactory
+                .delete(member)
+                .where(MemberCondition.compile(condition).bulkWhere())
+                .execute();
+
+        em.clear();
+        return count;
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * FETCH_JOIN은 쿼리를 만들 때 이미 적용됨
+     */
+    private List<Member> fetchMembers(JPAQuery<Member> query, MemberLoadOptions options) {
+        switch (options.getTeamLoading()) {
+            case ENTITY_GRAPH:
+                return query
+                        .setHint("javax.persistence.fetchgraph", em.getEntityGraph(Member.TEAM_GRAPH))
+                        .fetch();
+            case BATCH:
+                List<Member> members = query.fetch();
+                loadTeams(members, options.getBatchSize());
+                return members;
+            default:
+                return query.fetch();
+        }
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 아직 초기화 안된 team 프록시들의 id를 모아서 in절로 batchSize개씩 조회
+     * 조회된 Team은 영속성 컨텍스트에 들어가므로 이후 프록시 초기화시 쿼리가 나가지 않음
+     */
+    private void loadTeams(List<Member> members, int batchSize) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Long> teamIds = members.stream()
+                .map(Member::getTeam)
+                .filter(Objects::nonNull)
+                .filter(t -> !util.isLoaded(t))
+                .map(t -> (Long) util.getIdentifier(t)) // 프록시 초기화 없이 id만
+                .distinct()
+                .collect(Collectors.toList());
+
+        for (int from = 0; from < teamIds.size(); from += batchSize) {
+            List<Long> batch = teamIds.subList(from, Math.min(from + batchSize, teamIds.size()));
+            queryFactory
+                    .selectFrom(team)
+                    .where(team.id.in(batch))
+                    .fetch();
+        }
     }
 }
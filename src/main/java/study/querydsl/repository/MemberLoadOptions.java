@@ -0,0 +1,51 @@
+package study.querydsl.repository;
+
+/**
+ * 엔티티(Member) 조회시 연관된 team을 어떻게 가져올지
+ *
+ * team은 LAZY라 그냥 조회하면 member.getTeam().getName() 할 때마다 팀 조회 쿼리가 나감 (N+1)
+ */
+public class MemberLoadOptions {
+
+    public enum TeamLoading {
+        LAZY,         // 기본 - 쓸 때 프록시 초기화 (팀 수 만큼 쿼리)
+        FETCH_JOIN,   // member 조회 쿼리에서 team까지 fetch join (쿼리 1번)
+        ENTITY_GRAPH, // Member.team 엔티티 그래프 힌트 (쿼리 1번)
+        BATCH         // member 조회 후 team을 in절로 batchSize개씩 조회 (쿼리 1 + 팀 수 / batchSize번)
+    }
+
+    private final TeamLoading teamLoading;
+    private final int batchSize;
+
+    private MemberLoadOptions(TeamLoading teamLoading, int batchSize) {
+        this.teamLoading = teamLoading;
+        this.batchSize = batchSize;
+    }
+
+    public static MemberLoadOptions lazy() {
+        return new MemberLoadOptions(TeamLoading.LAZY, 0);
+    }
+
+    public static MemberLoadOptions fetchJoin() {
+        return new MemberLoadOptions(TeamLoading.FETCH_JOIN, 0);
+    }
+
+    public static MemberLoadOptions entityGraph() {
+        return new MemberLoadOptions(TeamLoading.ENTITY_GRAPH, 0);
+    }
+
+    public static MemberLoadOptions batch(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        return new MemberLoadOptions(TeamLoading.BATCH, batchSize);
+    }
+
+    public TeamLoading getTeamLoading() {
+        return teamLoading;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Pageable의 Sort -> querydsl OrderSpecifier 변환
+ *
+ * 정렬 가능한 속성은 화이트리스트(memberId, username, age, teamName)만 허용하고,
+ * 마지막에 항상 member.id를 붙여서 같은 값끼리도 순서가 고정되게 함(페이지 경계에서 행이 중복/누락되지 않도록).
+ * 인덱스를 못 타는 정렬은 결과 행 수가 기준치를 넘으면 거부 - 전체 테이블 filesort 방지.
+ */
+@Component
+public class MemberOrderResolver {
+
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamName", team.name
+    );
+
+    // Member 엔티티의 인덱스(username, member_id), (age, member_id)와 PK로 처리할 수 있는 단일 정렬
+    private static final Set<String> INDEXED = Set.of("memberId", "username", "age");
+
+    private final long unindexedRowThreshold;
+
+    public MemberOrderResolver(@Value("${member.sort.unindexed-row-threshold:10000}") long unindexedRowThreshold) {
+        this.unindexedRowThreshold = unindexedRowThreshold;
+    }
+
+    /**
+     * 정렬 조건이 없으면 member.id 오름차순
+     */
+    public OrderSpecifier<?>[] resolve(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        Order tieBreaker = Order.ASC;
+        boolean orderedById = false;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new UnsupportedSortException("정렬할 수 없는 속성입니다: " + order.getProperty() + " (가능: " + SORTABLE.keySet() + ")");
+            }
+            if (orders.isEmpty()) {
+                tieBreaker = order.isAscending() ? Order.ASC : Order.DESC; // 인덱스 (컬럼, member_id)를 한 방향으로 읽을 수 있게 첫 정렬과 같은 방향
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            orderedById = orderedById || path == member.id;
+        }
+
+        if (!orderedById) {
+            orders.add(tieBreaker == Order.ASC ? member.id.asc() : member.id.desc());
+        }
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    public boolean needsTeamJoin(Sort sort) {
+        return sort.getOrderFor("teamName") != null;
+    }
+
+    /**
+     * 인덱스 (컬럼, member_id)는 한 방향으로만 읽을 수 있으므로 두 정렬의 방향이 같아야 함 (username asc, memberId desc는 filesort)
+     */
+    public boolean isIndexed(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.isEmpty()
+                || (orders.size() == 1 && INDEXED.contains(orders.get(0).getProperty()))
+                || (orders.size() == 2 && INDEXED.contains(orders.get(0).getProperty()) && orders.get(1).getProperty().equals("memberId")
+                        && orders.get(0).getDirection() == orders.get(1).getDirection());
+    }
+
+    /**
+     * 인덱스를 못 타는 정렬이면 count를 먼저 조회해서 기준치 초과시 거부
+     * rowCount는 인덱스 정렬이면 호출하지 않음 - 페이지 전체 개수와 같은 값이면 호출하는 쪽에서 한번만 세도록 memoize 해서 넘김
+     */
+    public void checkRowCount(Sort sort, LongSupplier rowCount) {
+        if (isIndexed(sort)) {
+            return;
+        }
+        long rows = rowCount.getAsLong();
+        if (rows > unindexedRowThreshold) {
+            throw new UnsupportedSortException("정렬 " + sort + " 은 인덱스를 사용할 수 없어서 "
+                    + unindexedRowThreshold + "건 이하의 결과에서만 가능합니다. (결과: " + rows + "건) 검색 조건을 좁혀주세요.");
+        }
+    }
+}
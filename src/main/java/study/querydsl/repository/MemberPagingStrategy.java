@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+/**
+ * 페이징 쿼리 방식
+ */
+public enum MemberPagingStrategy {
+    /**
+     * 컨텐츠 쿼리 하나에 offset, limit (searchPageComplex)
+     * offset이 커지면 버릴 행까지 join, projection 하므로 느려짐
+     */
+    OFFSET,
+
+    /**
+     * 1단계 : 조건, 정렬, offset, limit으로 member.id만 조회
+     * 2단계 : 그 id들에 대해서만 team join + projection
+     * offset이 큰 깊은 페이지에서 유리
+     */
+    DEFERRED_JOIN
+}
@@ -1,6 +1,5 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
@@ -10,7 +9,6 @@ import study.querydsl.dto.QMemberTeamDto;
 import javax.persistence.EntityManager;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -34,28 +32,7 @@ public class MemberQueryRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
+                .where(MemberCondition.compile(condition).where()) // where절 파라미터 사용
                 .fetch();
     }
-
-    private BooleanExpression usernameEq(String username) { // 반환 타입이 Predicate(interface)보다는 BooleanExpression이 낫다! -> 그래야 나중에 조립 가능
-        return hasText(username) ?  member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ?  team.name.eq(teamName) : null; // 바로 team.name
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
 }
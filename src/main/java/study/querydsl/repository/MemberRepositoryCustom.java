@@ -3,14 +3,25 @@ package study.querydsl.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable); // 전체 count까지 한번의 쿼리로
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable); // 데이터 내용과 전체 카운트를 별도로 조회
     // 참고로 Page, Pageable은 springframework.data의 것을 import
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPagingStrategy strategy); // 페이징 방식 선택
+    ApproximatePage<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable, MemberCountMode countMode); // 전체 개수 계산 방식 선택 (추정 가능)
+    Page<Member> searchMemberPage(MemberSearchCondition condition, Pageable pageable); // 엔티티 페이징 - id 먼저 조회 후 team fetch join
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberTeamField> fields); // 요청한 필드만 select
+    Page<Map<String, Object>> searchPageFieldsSimple(MemberSearchCondition condition, List<MemberTeamField> fields, Pageable pageable); // searchPageSimple과 같은 count 규칙
+    Page<Map<String, Object>> searchPageFieldsComplex(MemberSearchCondition condition, List<MemberTeamField> fields, Pageable pageable); // searchPageComplex와 같은 count 규칙
+    ApproximatePage<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberTeamField> fields, Pageable pageable, MemberCountMode countMode);
+    MemberTeamColumns searchColumns(MemberSearchCondition condition); // search와 같은 조건, 결과를 primitive 배열에 담음 (대량 내부 처리용)
 
 }
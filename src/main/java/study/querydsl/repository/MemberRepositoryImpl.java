@@ -1,32 +1,53 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.StringInterner;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
     private final JPAQueryFactory queryFactory;
+    private final MemberOrderResolver orderResolver;
+    private final MemberAgeHistogram ageHistogram;
+    private final MemberTeamJdbcReader rowReader;
+    private final long countCap;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberOrderResolver orderResolver, MemberAgeHistogram ageHistogram,
+                                MemberTeamJdbcReader rowReader,
+                                @Value("${member.count.cap:5000}") long countCap) { // 사용자 정의 리포지토리 구현체도 스프링 빈이라 생성자 주입 가능
         this.queryFactory = new JPAQueryFactory(em);
+        this.orderResolver = orderResolver;
+        this.ageHistogram = ageHistogram;
+        this.rowReader = rowReader;
+        this.countCap = countCap;
     }
 
     @Override
@@ -41,22 +62,30 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
+                .where(MemberCondition.compile(condition).where()) // where절 파라미터 사용
                 .fetch();
     }
 
+    /**
+     * search와 같은 조건으로 조회하되 DTO 대신 컬럼형 배열에 바로 채움
+     * JDBC ResultSet의 primitive 값을 그대로 넣음 - 행마다 Tuple, Object[], 박싱 객체 없음 (MemberTeamJdbcReader)
+     */
+    @Override
+    public MemberTeamColumns searchColumns(MemberSearchCondition condition) {
+        MemberTeamColumns columns = new MemberTeamColumns();
+        rowReader.read(MemberCondition.compile(condition), MemberJpaRepository.DEFAULT_EXPORT_FETCH_SIZE, columns::add);
+        return columns;
+    }
+
     /**
      * 간단한 페이징 - fetchResults
      * 컨텐츠 쿼리, count 쿼리 총 2개의 쿼리를 날림
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount rowCount = new MemoizedCount(() -> countIds(compiled));
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -66,15 +95,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
+                .where(compiled.where()) // where절 파라미터 사용
+                .orderBy(orderBy(pageable, rowCount)) // pageable의 sort 적용
                 .offset(pageable.getOffset()) // 어디부터
-                .limit(pageable.getPageSize()) // 한 페이지당 몇개
-                .fetchResults();// fetchResults - 컨텐츠 쿼리, count 쿼리 총 2개의 쿼리를 날림
+                .limit(pageable.getPageSize()); // 한 페이지당 몇개
+
+        if (rowCount.isCounted()) { // 인덱스 없는 정렬이라 이미 셌으면 count 쿼리를 다시 날리지 않음
+            return new PageImpl<>(query.fetch(), pageable, rowCount.getAsLong());
+        }
+        QueryResults<MemberTeamDto> results = query.fetchResults();// fetchResults - 컨텐츠 쿼리, count 쿼리 총 2개의 쿼리를 날림
 
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
@@ -88,29 +117,28 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        // fetch - 컨텐츠 가져오는 쿼리
-        List<MemberTeamDto> content = getContent(condition, pageable);// 컨텐츠만 가져옴
-
+        MemberCondition compiled = MemberCondition.compile(condition); // 조건식은 한번만 만들어서 컨텐츠, count 쿼리에 같이 사용
         // 전체 데이터 수
         JPAQuery<Member> countQuery = queryFactory
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );// where절 파라미터 사용
+                .where(compiled.where());// where절 파라미터 사용
         // countQuery.fetchCount(); // fetchCount하지 않으면 쿼리가 날라가지 않음.
+        MemoizedCount rowCount = new MemoizedCount(() -> ageHistogram.count(compiled) // 나이/팀 조건만 있으면 SQL 없이
+                .orElseGet(countQuery::fetchCount));
 
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount()); // total count 쿼리를 날리지 않아도 되는 경우에는 3번째 인자로 넘긴 함수(total count 구하는 쿼리 실행 함수)를 실행하지 않음
+        // fetch - 컨텐츠 가져오는 쿼리
+        List<MemberTeamDto> content = getContent(compiled, pageable, rowCount);// 컨텐츠만 가져옴
+
+        return PageableExecutionUtils.getPage(content, pageable, rowCount); // total count 쿼리를 날리지 않아도 되는 경우에는 3번째 인자로 넘긴 함수(total count 구하는 쿼리 실행 함수)를 실행하지 않음, 정렬 확인에서 이미 셌으면 그 값
         // return new PageImpl<>(content, pageable, total); // PageImpl : Page의 구현체
     }
 
     /**
      * 컨텐츠 가져오는 쿼리
+     * rowCount - 인덱스 없는 정렬일 때 결과 행 수 확인용 (페이지 전체 개수와 같은 값, memoize 된 것을 넘겨서 한번만 셈)
      */
-    private List<MemberTeamDto> getContent(MemberSearchCondition condition, Pageable pageable) {
+    private List<MemberTeamDto> getContent(MemberCondition condition, Pageable pageable, LongSupplier rowCount) {
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -121,31 +149,280 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()), // 아래에서 조건식을 반환하는 함수 생성
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ) // where절 파라미터 사용
+                .where(condition.where()) // where절 파라미터 사용
+                .orderBy(orderBy(pageable, rowCount)) // pageable의 sort 적용
                 .offset(pageable.getOffset()) // 어디부터
                 .limit(pageable.getPageSize()) // 한 페이지당 몇개
                 .fetch();
     }
 
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPagingStrategy strategy) {
+        if (strategy == MemberPagingStrategy.DEFERRED_JOIN) {
+            return searchPageDeferredJoin(condition, pageable);
+        }
+        return searchPageComplex(condition, pageable);
+    }
 
-    private BooleanExpression usernameEq(String username) { // 반환 타입이 Predicate(interface)보다는 BooleanExpression이 낫다! -> 그래야 나중에 조립 가능
-        return hasText(username) ?  member.username.eq(username) : null;
+    /**
+     * 컨텐츠는 searchPageComplex와 같고, 전체 개수만 countMode 방식으로
+     */
+    @Override
+    public ApproximatePage<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable, MemberCountMode countMode) {
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount exactCount = new MemoizedCount(() -> countIds(compiled));
+        List<MemberTeamDto> content = getContent(compiled, pageable, exactCount);
+        return approximatePage(compiled, content, pageable, countMode, exactCount);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ?  team.name.eq(teamName) : null; // 바로 team.name
+    /**
+     * 컨텐츠는 이미 조회했고 전체 개수만 countMode 방식으로 (searchPage, searchPageFields 공통)
+     */
+    private <T> ApproximatePage<T> approximatePage(MemberCondition condition, List<T> content, Pageable pageable,
+                                                   MemberCountMode countMode, MemoizedCount exactCount) {
+        // 마지막 페이지인게 확실하면 count 필요 없음 (PageableExecutionUtils와 같은 규칙)
+        if ((pageable.getOffset() == 0 || !content.isEmpty()) && content.size() < pageable.getPageSize()) {
+            return new ApproximatePage<>(content, pageable, pageable.getOffset() + content.size(), false);
+        }
+
+        if (exactCount.isCounted()) { // 인덱스 없는 정렬 확인에서 이미 정확히 셌음
+            return new ApproximatePage<>(content, pageable, exactCount.getAsLong(), false);
+        }
+
+        OptionalLong histogramCount = ageHistogram.count(condition); // 나이/팀 조건만 있으면 SQL 없이 정확한 값
+        if (histogramCount.isPresent()) {
+            return new ApproximatePage<>(content, pageable, histogramCount.getAsLong(), false);
+        }
+
+        switch (countMode) {
+            case ESTIMATED:
+                OptionalLong estimate = ageHistogram.estimate(condition); // 위에서 답하지 못한 경우 (stale, 쓰기 트랜잭션 안) 마지막으로 센 값
+                if (estimate.isPresent()) {
+                    long total = Math.max(estimate.getAsLong(), pageable.getOffset() + content.size()); // 현재 페이지보다 적게 추정되면 보정
+                    return new ApproximatePage<>(content, pageable, total, true);
+                }
+                // 추정할 수 없는 조건이면 CAPPED
+            case CAPPED:
+                long cap = Math.max(countCap, pageable.getOffset() + pageable.getPageSize()); // cap보다 뒤쪽 페이지면 그 페이지 끝까지
+                long counted = rowReader.countCapped(condition, cap);
+                return new ApproximatePage<>(content, pageable, counted, counted > cap);
+            default:
+                return new ApproximatePage<>(content, pageable, exactCount.getAsLong(), false);
+        }
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * 지연 조인(deferred join) 페이징
+     * offset으로 버려지는 행은 id만 읽고, team join과 DTO 생성은 실제 페이지의 행에 대해서만 함
+     */
+    private Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
+        // 1단계 - 페이지에 해당하는 id만
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount rowCount = new MemoizedCount(() -> countIds(compiled));
+        List<Long> ids = getPageIds(compiled, pageable, rowCount);
+
+        // 2단계 - 그 id들의 컨텐츠
+        List<MemberTeamDto> content = ids.isEmpty() ? List.of() : orderByIds(ids, queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(ids))
+                .fetch(), MemberTeamDto::getMemberId);
+
+        return PageableExecutionUtils.getPage(content, pageable, rowCount);
+    }
+
+    /**
+     * 엔티티 페이징 - 지연 조인 + fetch join
+     * 컬렉션이 아닌 ToOne fetch join이라 in절 조회 결과 행 수 = 회원 수
+     */
+    @Override
+    public Page<Member> searchMemberPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount rowCount = new MemoizedCount(() -> countIds(compiled));
+        List<Long> ids = getPageIds(compiled, pageable, rowCount);
+
+        List<Member> content = ids.isEmpty() ? List.of() : orderByIds(ids, queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.id.in(ids))
+                .fetch(), Member::getId);
+
+        return PageableExecutionUtils.getPage(content, pageable, rowCount);
+    }
+
+    /**
+     * 조건, offset, limit으로 member.id만 조회
+     * teamName 조건이 없으면 team join도 하지 않음
+     */
+    private List<Long> getPageIds(MemberCondition condition, Pageable pageable, LongSupplier rowCount) {
+        OrderSpecifier<?>[] orders = orderBy(pageable, rowCount);
+        JPAQuery<Long> query = queryFactory
+                .select(member.id)
+                .from(member);
+        if (condition.needsTeamJoin() || orderResolver.needsTeamJoin(pageable.getSort())) {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(condition.where())
+                .orderBy(orders)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 요청한 필드만 select - 동적 projection
+     * team 필드나 teamName 조건이 없으면 team join 생략
+     */
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberTeamField> fields) {
+        return toRows(fieldsQuery(MemberCondition.compile(condition), fields, false).fetch(), fields); // search와 같이 정렬 없음
+    }
+
+    /**
+     * searchPageSimple과 같은 규칙 - 전체 개수를 항상 셈
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFieldsSimple(MemberSearchCondition condition, List<MemberTeamField> fields, Pageable pageable) {
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount rowCount = new MemoizedCount(() -> countIds(compiled));
+        List<Tuple> rows = fetchPageFields(compiled, fields, pageable, rowCount);
+        return new PageImpl<>(toRows(rows, fields), pageable, rowCount.getAsLong());
+    }
+
+    /**
+     * searchPageComplex와 같은 규칙 - 마지막 페이지인게 확실하면 count 생략
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFieldsComplex(MemberSearchCondition condition, List<MemberTeamField> fields, Pageable pageable) {
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount rowCount = new MemoizedCount(() -> countIds(compiled));
+        List<Tuple> rows = fetchPageFields(compiled, fields, pageable, rowCount);
+        return PageableExecutionUtils.getPage(toRows(rows, fields), pageable, rowCount);
+    }
+
+    /**
+     * searchPageApproximate와 같은 규칙 - 전체 개수를 countMode 방식으로
+     */
+    @Override
+    public ApproximatePage<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberTeamField> fields,
+                                                                 Pageable pageable, MemberCountMode countMode) {
+        MemberCondition compiled = MemberCondition.compile(condition);
+        MemoizedCount exactCount = new MemoizedCount(() -> countIds(compiled));
+        List<Tuple> rows = fetchPageFields(compiled, fields, pageable, exactCount);
+        return approximatePage(compiled, toRows(rows, fields), pageable, countMode, exactCount);
+    }
+
+    private List<Tuple> fetchPageFields(MemberCondition condition, List<MemberTeamField> fields, Pageable pageable, LongSupplier rowCount) {
+        return fieldsQuery(condition, fields, orderResolver.needsTeamJoin(pageable.getSort()))
+                .orderBy(orderBy(pageable, rowCount))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(MemberCondition condition, List<MemberTeamField> fields, boolean sortByTeam) {
+        Expression<?>[] paths = fields.stream()
+                .map(MemberTeamField::getPath)
+                .toArray(Expression[]::new);
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(paths)
+                .from(member);
+        if (sortByTeam || condition.needsTeamJoin() || fields.stream().anyMatch(MemberTeamField::needsTeamJoin)) {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(condition.where());
+    }
+
+    private List<Map<String, Object>> toRows(List<Tuple> tuples, List<MemberTeamField> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(); // 요청한 필드 순서대로 JSON 출력
+            for (MemberTeamField field : fields) {
+                Object value = tuple.get(field.getPath());
+                if (field == MemberTeamField.TEAM_NAME) {
+                    value = StringInterner.TEAM_NAMES.intern((String) value); // MemberTeamDto와 같은 팀 이름 인스턴스 사용
+                }
+                row.put(field.getFieldName(), value);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * pageable의 sort -> OrderSpecifier (마지막에 member.id로 순서 고정)
+     * 인덱스를 못 타는 정렬은 결과가 많으면 UnsupportedSortException
+     * rowCount는 페이지 전체 개수와 같은 MemoizedCount - 여기서 셌으면 페이지 total에 그 값을 다시 씀
+     */
+    private OrderSpecifier<?>[] orderBy(Pageable pageable, LongSupplier rowCount) {
+        OrderSpecifier<?>[] orders = orderResolver.resolve(pageable.getSort());
+        orderResolver.checkRowCount(pageable.getSort(), rowCount);
+        return orders;
+    }
+
+    /**
+     * 나이/팀 조건만 있으면 MemberAgeHistogram에서 (SQL 없음), 아니면 count 쿼리
+     */
+    private long countIds(MemberCondition condition) {
+        OptionalLong histogramCount = ageHistogram.count(condition);
+        if (histogramCount.isPresent()) {
+            return histogramCount.getAsLong();
+        }
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (condition.needsTeamJoin()) {
+            countQuery.leftJoin(member.team, team);
+        }
+        return countQuery
+                .where(condition.where())
+                .fetchOne();
+    }
+
+    /**
+     * in절 조회 결과는 순서 보장이 안되므로 1단계의 id 순서대로 다시 정렬
+     */
+    private <T> List<T> orderByIds(List<Long> ids, List<T> rows, Function<T, Long> idGetter) {
+        Map<Long, T> rowById = rows.stream().collect(Collectors.toMap(idGetter, Function.identity()));
+        return ids.stream()
+                .map(rowById::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 처음 호출할 때 한번만 세고 그 값을 계속 반환 - 정렬 확인과 페이지 total이 같은 count를 공유
+     */
+    private static final class MemoizedCount implements LongSupplier {
+        private final LongSupplier source;
+        private boolean counted;
+        private long value;
+
+        MemoizedCount(LongSupplier source) {
+            this.source = source;
+        }
+
+        @Override
+        public long getAsLong() {
+            if (!counted) {
+                value = source.getAsLong();
+                counted = true;
+            }
+            return value;
+        }
+
+        boolean isCounted() {
+            return counted;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * fields= 파라미터로 고를 수 있는 MemberTeamDto 필드와 querydsl 경로
+ */
+public enum MemberTeamField {
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false), // 외래키 컬럼이라 team join 필요 없음
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String fieldName;
+    private final Expression<?> path;
+    private final boolean teamJoin;
+
+    MemberTeamField(String fieldName, Expression<?> path, boolean teamJoin) {
+        this.fieldName = fieldName;
+        this.path = path;
+        this.teamJoin = teamJoin;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Expression<?> getPath() {
+        return path;
+    }
+
+    public boolean needsTeamJoin() {
+        return teamJoin;
+    }
+
+    /**
+     * 필드 이름 목록 -> 필드 (중복 제거, 요청 순서 유지)
+     */
+    public static List<MemberTeamField> of(List<String> fieldNames) {
+        LinkedHashSet<MemberTeamField> fields = new LinkedHashSet<>();
+        for (String fieldName : fieldNames) {
+            fields.add(of(fieldName.trim()));
+        }
+        if (fields.isEmpty()) {
+            throw new UnsupportedFieldException("fields가 비어 있습니다.");
+        }
+        return new ArrayList<>(fields);
+    }
+
+    public static MemberTeamField of(String fieldName) {
+        for (MemberTeamField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new UnsupportedFieldException("조회할 수 없는 필드입니다: " + fieldName);
+    }
+}
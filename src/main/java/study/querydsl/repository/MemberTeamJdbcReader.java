@@ -0,0 +1,140 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 + 팀 컬럼을 JDBC ResultSet에서 바로 읽어서 MemberTeamRowHandler에 넘김 (JPA 결과 변환을 거치지 않음)
+ *
+ * Hibernate scroll은 행마다 Object[], querydsl Tuple, Long/Integer 박싱 객체를 만들지만
+ * 여기서는 getLong/getInt 값을 그대로 넘김 -> 행마다 새로 생기는 객체는 드라이버가 만드는 문자열(username, 팀 이름)뿐.
+ *
+ * SQL은 직접 쓰지 않고 querydsl 쿼리(QMemberTeamDto 프로젝션 + MemberCondition.where())를 hibernate가 번역한 SQL을 사용
+ * -> 조건, 컬럼 순서가 searchByWhere와 항상 같음. 번역 결과는 hibernate 쿼리 플랜 캐시에 남음 (조건 모양마다 한번 번역)
+ *
+ * 트랜잭션 안이면 JpaTransactionManager가 묶어둔 같은 커넥션 사용 -> 조회 전에 flush (JPQL 실행 전 자동 flush와 같게)
+ * 밖이면 읽기 전용 트랜잭션으로 조회 (커서 방식 fetch size는 autocommit off일 때만 동작하는 DB가 있음 - PostgreSQL)
+ */
+@Component
+public class MemberTeamJdbcReader {
+
+    private final EntityManager em;
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MemberTeamJdbcReader(EntityManager em, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return 읽은 행 수
+     */
+    public long read(MemberCondition condition, int fetchSize, MemberTeamRowHandler handler) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return readOnlyTransaction.execute(status -> query(condition, fetchSize, handler));
+        }
+        em.flush();
+        return query(condition, fetchSize, handler);
+    }
+
+    /**
+     * 조건에 맞는 행을 최대 cap + 1개까지만 셈 (count=CAPPED) - cap + 1행을 찾으면 DB가 더 읽지 않음
+     * id 목록을 가져와서 세지 않고 DB 안에서 셈 -> 애플리케이션으로 오는 값은 count 하나
+     */
+    public long countCapped(MemberCondition condition, long cap) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+        JPAQuery<Long> ids = new JPAQuery<>(em)
+                .select(member.id)
+                .from(member);
+        if (condition.needsTeamJoin()) {
+            ids.leftJoin(member.team, team);
+        }
+        SqlQuery sql = toSql(ids.where(condition.where()));
+        List<Object> params = new ArrayList<>(sql.params);
+        params.add(cap + 1);
+        return jdbcTemplate.queryForObject("select count(*) from (" + sql.sql + " limit ?) capped", Long.class, params.toArray());
+    }
+
+    private long query(MemberCondition condition, int fetchSize, MemberTeamRowHandler handler) {
+        SqlQuery sql = toSql(new JPAQuery<>(em)
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name)) // 컬럼 순서 = 아래 rs.getXxx 순서
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(condition.where()));
+
+        long[] count = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.sql);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < sql.params.size(); i++) {
+                statement.setObject(i + 1, sql.params.get(i));
+            }
+            return statement;
+        }, rs -> {
+            long teamId = rs.getLong(4);
+            boolean noTeam = rs.wasNull(); // wasNull은 바로 앞에서 읽은 컬럼 기준
+            handler.row(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                    noTeam ? MemberTeamRowHandler.NO_TEAM : teamId, noTeam ? null : rs.getString(5));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * querydsl 쿼리 -> JPQL -> hibernate가 번역한 SQL + SQL의 ? 순서대로 정렬한 파라미터
+     */
+    private SqlQuery toSql(JPQLQuery<?> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        List<Object> constants = serializer.getConstants(); // JPQL의 ?1, ?2 ... 순서
+        QueryTranslator translator = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(serializer.toString(), false, Collections.emptyMap())
+                .getTranslators()[0];
+
+        Map<Integer, Object> paramsBySqlPosition = new TreeMap<>(); // JPQL 파라미터 하나가 SQL에 여러번 나올 수 있음
+        translator.getParameterTranslations().getPositionalParameterInformationMap().forEach((label, parameter) -> {
+            for (int position : parameter.getSourceLocations()) {
+                paramsBySqlPosition.put(position, constants.get(label - 1));
+            }
+        });
+        return new SqlQuery(translator.getSQLString(), new ArrayList<>(paramsBySqlPosition.values()));
+    }
+
+    private static class SqlQuery {
+        private final String sql;
+        private final List<Object> params;
+
+        SqlQuery(String sql, List<Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+/**
+ * MemberJpaRepository.exportRows 한 행 - MemberTeamDto 생성자와 같은 인자 순서 (박싱 없이 primitive)
+ * 팀 없는 회원이면 teamId는 NO_TEAM(0), teamName은 null (id는 시퀀스라 1부터 시작)
+ */
+@FunctionalInterface
+public interface MemberTeamRowHandler {
+    long NO_TEAM = 0;
+
+    void row(long memberId, String username, int age, long teamId, String teamName);
+}
@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+/**
+ * fields= 에 없는 필드 요청 - 컨트롤러에서 400 응답 (ApiExceptionHandler)
+ */
+public class UnsupportedFieldException extends RuntimeException {
+
+    public UnsupportedFieldException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+/**
+ * 허용하지 않는 정렬 요청 - 컨트롤러에서 400 응답 (ApiExceptionHandler)
+ */
+public class UnsupportedSortException extends RuntimeException {
+
+    public UnsupportedSortException(String message) {
+        super(message);
+    }
+}
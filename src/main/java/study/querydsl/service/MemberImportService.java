@@ -0,0 +1,209 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 대량 등록
+ *
+ * 요청 body를 한 줄씩 읽어서(전체를 메모리에 올리지 않음) chunk 단위로 저장, 커밋한다.
+ * chunk 마다 flush + clear 하므로 파일 크기와 상관없이 영속성 컨텍스트 크기는 chunk 크기로 고정됨.
+ * 중간 chunk에서 실패하면 이전 chunk들은 이미 커밋된 상태로 남는다. (바깥 트랜잭션 안에서 호출해도 chunk마다 새 트랜잭션)
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public MemberImportService(EntityManager em,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${member.import.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * CSV - username,age,teamName (첫 줄이 정확히 username,age[,teamName] 이면 헤더로 보고 건너뜀, 따옴표 escape 미지원)
+     */
+    public MemberImportResult importCsv(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        return importRows(new CsvRowIterator(reader));
+    }
+
+    /**
+     * NDJSON - 한 줄에 {"username":..,"age":..,"teamName":..} 하나
+     */
+    public MemberImportResult importNdjson(InputStream in) throws IOException {
+        MappingIterator<MemberImportRow> rows = objectMapper.readerFor(MemberImportRow.class).readValues(in); // 한 건씩 파싱
+        return importRows(rows);
+    }
+
+    private MemberImportResult importRows(Iterator<MemberImportRow> rows) {
+        long start = System.nanoTime();
+        List<MemberImportRow> chunk = new ArrayList<>(chunkSize);
+        long total = 0;
+        int chunks = 0;
+
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk);
+                total += chunk.size();
+                chunks++;
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk);
+            total += chunk.size();
+            chunks++;
+        }
+
+        MemberImportResult result = new MemberImportResult(total, chunks, System.nanoTime() - start);
+        log.info("member import finished. {}", result);
+        return result;
+    }
+
+    /**
+     * chunk 1개 = 트랜잭션 1개
+     * hibernate.jdbc.batch_size 설정으로 insert 쿼리가 JDBC batch로 묶여서 나감
+     * 팀 캐시도 chunk 트랜잭션 안에서만 씀 - 롤백된 chunk가 만든 팀 id가 남지 않고, 캐시 크기도 chunk 크기 이하
+     */
+    private void saveChunk(List<MemberImportRow> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Long> teamIds = new HashMap<>(); // 팀 캐시 : 팀 이름 -> id
+            for (MemberImportRow row : chunk) {
+                em.persist(new Member(row.getUsername(), row.getAge(), resolveTeam(row.getTeamName(), teamIds)));
+            }
+            em.flush();
+            em.clear(); // 영속성 컨텍스트 비우기 - 메모리 일정하게 유지
+        });
+    }
+
+    private Team resolveTeam(String teamName, Map<String, Long> teamIds) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+
+        Long teamId = teamIds.get(teamName);
+        if (teamId != null) {
+            return em.getReference(Team.class, teamId); // 캐시 hit - select 쿼리 없이 프록시만
+        }
+
+        Team findTeam = queryFactory
+                .selectFrom(team)
+                .where(team.name.eq(teamName))
+                .fetchFirst();
+        if (findTeam == null) { // 처음 보는 팀이면 생성
+            findTeam = new Team(teamName);
+            em.persist(findTeam);
+        }
+        teamIds.put(teamName, findTeam.getId());
+        return findTeam;
+    }
+
+    /**
+     * BufferedReader를 한 줄씩 읽는 Iterator
+     */
+    private static class CsvRowIterator implements Iterator<MemberImportRow> {
+        private static final List<String> HEADER = List.of("username", "age");
+        private static final List<String> HEADER_WITH_TEAM = List.of("username", "age", "teamName");
+
+        private final BufferedReader reader;
+        private String nextLine;
+        private long lineNumber;
+
+        CsvRowIterator(BufferedReader reader) {
+            this.reader = reader;
+            this.nextLine = readLine();
+            if (nextLine != null && isHeader(nextLine)) {
+                this.nextLine = readLine();
+            }
+        }
+
+        private static boolean isHeader(String line) { // username1,10 같은 회원 행은 헤더가 아님
+            List<String> columns = Arrays.stream(line.split(",", -1)).map(String::trim).collect(Collectors.toList());
+            return columns.equals(HEADER) || columns.equals(HEADER_WITH_TEAM);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLine != null;
+        }
+
+        @Override
+        public MemberImportRow next() {
+            if (nextLine == null) {
+                throw new NoSuchElementException();
+            }
+            MemberImportRow row = parse(nextLine);
+            nextLine = readLine();
+            return row;
+        }
+
+        private MemberImportRow parse(String line) {
+            String[] columns = line.split(",", -1);
+            if (columns.length < 2 || columns.length > 3) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected username,age[,teamName] but was '" + line + "'");
+            }
+            try {
+                String teamName = columns.length == 3 ? columns[2].trim() : null;
+                return new MemberImportRow(columns[0].trim(), Integer.parseInt(columns[1].trim()), teamName);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": age is not a number '" + columns[1] + "'", e);
+            }
+        }
+
+        private String readLine() { // 빈 줄은 건너뜀
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                } while (line != null && line.trim().isEmpty());
+                return line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
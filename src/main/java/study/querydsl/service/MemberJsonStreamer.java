@@ -0,0 +1,85 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberTeamField;
+import study.querydsl.repository.MemberTeamRowHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 회원 검색 결과를 DB에서 읽는 대로 JSON 배열로 씀 - List<MemberTeamDto>를 만들지 않음
+ *
+ * List 응답은 전체 DTO 목록이 만들어진 뒤에야 직렬화를 시작하므로 결과 전체가 heap에 있고 첫 바이트도 늦음.
+ * 여기서는 JDBC ResultSet에서 한 행씩 읽어서 바로 JsonGenerator에 씀 (행마다 DTO, Tuple, 박싱 객체 없음)
+ * -> heap은 결과 크기와 상관없이 fetch size 정도,
+ * 버퍼(8KB)가 차면 바로 클라이언트로 나감.
+ * 출력 형식은 MemberTeamDto를 Jackson으로 직렬화한 것과 같음 (필드 순서 포함)
+ */
+@Service
+public class MemberJsonStreamer {
+
+    private static final SerializableString MEMBER_ID = new SerializedString(MemberTeamField.MEMBER_ID.getFieldName());
+    private static final SerializableString USERNAME = new SerializedString(MemberTeamField.USERNAME.getFieldName());
+    private static final SerializableString AGE = new SerializedString(MemberTeamField.AGE.getFieldName());
+    private static final SerializableString TEAM_ID = new SerializedString(MemberTeamField.TEAM_ID.getFieldName());
+    private static final SerializableString TEAM_NAME = new SerializedString(MemberTeamField.TEAM_NAME.getFieldName());
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public MemberJsonStreamer(MemberJpaRepository memberJpaRepository, ObjectMapper objectMapper,
+                              @Value("${member.stream.fetch-size:1000}") int fetchSize) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * out은 닫지 않음
+     * 쓰는 도중 실패하면(클라이언트 연결 끊김 등) 이미 보낸 부분은 되돌릴 수 없음 -> 잘린 JSON
+     * @return 쓴 행 수
+     */
+    public long write(MemberSearchCondition condition, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            long count = memberJpaRepository.exportRows(condition, fetchSize, (memberId, username, age, teamId, teamName) -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeFieldName(MEMBER_ID);
+                    generator.writeNumber(memberId);
+                    generator.writeFieldName(USERNAME);
+                    generator.writeString(username);
+                    generator.writeFieldName(AGE);
+                    generator.writeNumber(age);
+                    generator.writeFieldName(TEAM_ID);
+                    if (teamId == MemberTeamRowHandler.NO_TEAM) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(teamId);
+                    }
+                    generator.writeFieldName(TEAM_NAME);
+                    generator.writeString(teamName); // null이면 null로 씀
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
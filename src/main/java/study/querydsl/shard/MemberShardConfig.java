@@ -0,0 +1,47 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.shard.enabled=true 일 때만 샤드 저장소 등록
+ *
+ * 샤드 DataSource는 DataSource 타입 빈으로 등록하지 않음 -> DataSource 빈이 생기면 JPA용 기본 DataSource 자동 설정이 꺼지기 때문.
+ * 대신 MemberShardDataSources 빈으로 묶어서 등록 (컨텍스트 종료시 닫힘, 풀은 JMX로 모니터링).
+ */
+@Configuration
+@EnableConfigurationProperties(MemberShardProperties.class)
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class MemberShardConfig {
+
+    @Bean
+    public MemberShardDataSources memberShardDataSources(MemberShardProperties properties) {
+        if (properties.getUrls().isEmpty()) {
+            throw new IllegalStateException("member.shard.urls 가 비어 있습니다.");
+        }
+
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < properties.getUrls().size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + i);
+            dataSource.setJdbcUrl(properties.getUrls().get(i));
+            dataSource.setUsername(properties.getUsername());
+            dataSource.setPassword(properties.getPassword());
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+            dataSource.setRegisterMbeans(true);
+            dataSources.add(dataSource);
+        }
+        return new MemberShardDataSources(dataSources);
+    }
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(MemberShardDataSources memberShardDataSources) {
+        return new ShardedMemberRepository(memberShardDataSources.getDataSources());
+    }
+}
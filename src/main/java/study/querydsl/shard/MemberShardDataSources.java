@@ -0,0 +1,44 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드별 커넥션 풀 묶음 - 빈으로 등록해서 컨텍스트가 종료될 때 닫힘 (close)
+ *
+ * HikariDataSource를 DataSource 타입 빈으로 하나씩 등록하면 JPA용 기본 DataSource 자동 설정(DataSourceAutoConfiguration)이 꺼지므로
+ * DataSource가 아닌 이 타입으로 감싸서 등록.
+ * 풀 상태는 getPools() 또는 JMX (com.zaxxer.hikari:type=Pool (member-shard-N))로 확인.
+ */
+public class MemberShardDataSources implements AutoCloseable {
+
+    private final List<HikariDataSource> dataSources;
+
+    public MemberShardDataSources(List<HikariDataSource> dataSources) {
+        this.dataSources = List.copyOf(dataSources);
+    }
+
+    /**
+     * 순서 = 샤드 번호
+     */
+    public List<DataSource> getDataSources() {
+        return List.copyOf(dataSources);
+    }
+
+    public List<HikariPoolMXBean> getPools() {
+        return dataSources.stream()
+                .map(HikariDataSource::getHikariPoolMXBean)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource dataSource : dataSources) {
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.shard.* 설정
+ *
+ * urls의 순서가 곧 샤드 번호 - id에 샤드 번호가 들어가므로 데이터가 있는 상태에서 순서나 개수를 바꾸면 안됨.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("member.shard")
+public class MemberShardProperties {
+    private boolean enabled;
+    private List<String> urls = new ArrayList<>();
+    private String username = "sa";
+    private String password = "";
+    private int poolSize = 4; // 샤드 하나당 커넥션 수
+}
@@ -0,0 +1,479 @@
+package study.querydsl.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCondition;
+import study.querydsl.repository.UnsupportedSortException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * team_id 기준으로 회원을 N개의 DB(샤드)에 나눠 저장하고 검색하는 저장소 (JPA 아님, JdbcTemplate)
+ *
+ * - 팀은 생성될 때 샤드 하나에 배정되고, 그 팀의 회원은 모두 같은 샤드에 저장 -> 회원-팀 join은 샤드 안에서 끝남
+ * - id = (샤드 안의 시퀀스 값) * 샤드 수 + 샤드 번호 -> id만 보고 샤드를 알 수 있음 (팀 없는 회원은 돌아가며 배정)
+ * - teamName 조건 검색은 팀이 있는 샤드 하나에만 조회
+ * - 그 외 검색은 모든 샤드에 동시에 조회(scatter)하고, 정렬된 결과를 k-way 병합(gather), count는 합산
+ *
+ * 샤드 간 트랜잭션은 없음 - saveAll은 샤드별로 따로 저장됨.
+ * 팀 이름 -> id 목록은 메모리에만 두고, 생성될 때 각 샤드의 team 테이블에서 다시 읽음 (loadTeams).
+ * DataSource는 MemberShardDataSources 빈이 닫음.
+ */
+@Slf4j
+public class ShardedMemberRepository implements DisposableBean {
+
+    private static final int ID_BLOCK_SIZE = 100; // 시퀀스 한번 호출로 가져오는 id 수 (시퀀스 increment by와 같아야 함)
+
+    private static final String[] SCHEMA = {
+            "create table if not exists team (team_id bigint primary key, name varchar(255) not null)",
+            "create table if not exists member (member_id bigint primary key, username varchar(255), age int not null, team_id bigint, "
+                    + "constraint fk_member_team foreign key (team_id) references team (team_id))",
+            "create index if not exists idx_member_team on member (team_id, member_id)",
+            "create index if not exists idx_member_username on member (username, member_id)",
+            "create index if not exists idx_member_age on member (age, member_id)",
+            "create sequence if not exists team_seq start with 1 increment by " + ID_BLOCK_SIZE,
+            "create sequence if not exists member_seq start with 1 increment by " + ID_BLOCK_SIZE
+    };
+
+    private static final String SELECT = "select m.member_id, m.username, m.age, m.team_id, t.name as team_name "
+            + "from member m left join team t on t.team_id = m.team_id";
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong("member_id"),
+            rs.getString("username"),
+            rs.getInt("age"),
+            rs.getObject("team_id", Long.class),
+            rs.getString("team_name"));
+
+    // 정렬 가능한 속성 - MemberOrderResolver와 같은 화이트리스트, SQL 컬럼과 병합용 Comparator
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "memberId", "m.member_id",
+            "username", "m.username",
+            "age", "m.age",
+            "teamName", "t.name"
+    );
+    private static final Map<String, Comparator<MemberTeamDto>> SORT_COMPARATORS = Map.of(
+            "memberId", comparing(MemberTeamDto::getMemberId),
+            "username", comparing(MemberTeamDto::getUsername, nullsFirst(naturalOrder())),
+            "age", comparingInt(MemberTeamDto::getAge),
+            "teamName", comparing(MemberTeamDto::getTeamName, nullsFirst(naturalOrder()))
+    );
+
+    private final List<NamedParameterJdbcTemplate> shards;
+    private final ExecutorService executor;
+    private final IdBlock[] teamIds;
+    private final IdBlock[] memberIds;
+    private final Map<String, Long> teamIdsByName = new ConcurrentHashMap<>(); // 팀 이름 -> id (팀이 있는 샤드를 찾는 용도)
+    private final Object teamLock = new Object(); // 같은 이름의 팀이 두 번 insert 되지 않게
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedMemberRepository(List<DataSource> dataSources) {
+        this.shards = dataSources.stream().map(NamedParameterJdbcTemplate::new).collect(Collectors.toList());
+        this.executor = Executors.newFixedThreadPool(shards.size(), new CustomizableThreadFactory("member-shard-"));
+        this.teamIds = newIdBlocks(shards.size());
+        this.memberIds = newIdBlocks(shards.size());
+
+        for (NamedParameterJdbcTemplate shard : shards) {
+            for (String ddl : SCHEMA) {
+                shard.getJdbcTemplate().execute(ddl);
+            }
+        }
+        loadTeams();
+        log.info("member shards ready. shards={}, teams={}", shards.size(), teamIdsByName.size());
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * id가 저장된 샤드 번호 (팀 id, 회원 id 모두)
+     */
+    public int shardOf(long id) {
+        return Math.floorMod(id, shards.size());
+    }
+
+    /**
+     * 같은 이름의 팀이 있으면 그 팀의 id
+     * insert(DB I/O)는 computeIfAbsent 안에서 하지 않음 - ConcurrentHashMap의 bin lock을 잡은 채로 DB를 기다리면 다른 키의 갱신도 막힘
+     */
+    public long createTeam(String name) {
+        Long teamId = teamIdsByName.get(name);
+        if (teamId != null) {
+            return teamId;
+        }
+        synchronized (teamLock) { // 팀 생성은 드물어서 하나의 lock으로 충분
+            teamId = teamIdsByName.get(name);
+            if (teamId == null) {
+                teamId = insertTeam(name);
+                teamIdsByName.put(name, teamId);
+            }
+            return teamId;
+        }
+    }
+
+    public Optional<Long> findTeamId(String name) {
+        return Optional.ofNullable(teamIdsByName.get(name));
+    }
+
+    public long save(String username, int age, String teamName) {
+        Long teamId = hasText(teamName) ? createTeam(teamName) : null;
+        int shard = teamId != null ? shardOf(teamId) : nextShard();
+        long id = nextId(shard, "member_seq", memberIds[shard]);
+        shards.get(shard).update("insert into member (member_id, username, age, team_id) values (:memberId, :username, :age, :teamId)",
+                memberParams(id, username, age, teamId));
+        return id;
+    }
+
+    /**
+     * 샤드별로 모아서 JDBC batch insert, 샤드들은 동시에 저장
+     */
+    public int saveAll(List<MemberImportRow> rows) {
+        List<List<SqlParameterSource>> byShard = IntStream.range(0, shards.size())
+                .mapToObj(i -> new ArrayList<SqlParameterSource>())
+                .collect(Collectors.toList());
+
+        for (MemberImportRow row : rows) {
+            Long teamId = hasText(row.getTeamName()) ? createTeam(row.getTeamName()) : null;
+            int shard = teamId != null ? shardOf(teamId) : nextShard();
+            long id = nextId(shard, "member_seq", memberIds[shard]);
+            byShard.get(shard).add(memberParams(id, row.getUsername(), row.getAge(), teamId));
+        }
+
+        List<Integer> targets = IntStream.range(0, shards.size())
+                .filter(i -> !byShard.get(i).isEmpty())
+                .boxed()
+                .collect(Collectors.toList());
+        fanOut(targets, shard -> shards.get(shard).batchUpdate(
+                "insert into member (member_id, username, age, team_id) values (:memberId, :username, :age, :teamId)",
+                byShard.get(shard).toArray(new SqlParameterSource[0])));
+        return rows.size();
+    }
+
+    public Optional<MemberTeamDto> findById(long memberId) {
+        List<MemberTeamDto> rows = shards.get(shardOf(memberId))
+                .query(SELECT + " where m.member_id = :memberId", new MapSqlParameterSource("memberId", memberId), ROW_MAPPER);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * 전체 검색 - member.id 오름차순
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, Sort.unsorted());
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition, Sort sort) {
+        MemberCondition where = MemberCondition.compile(condition);
+        List<Sort.Order> orders = resolve(sort);
+        List<Integer> targets = route(where);
+
+        List<List<MemberTeamDto>> results = fanOut(targets, shard -> query(shard, where, orders, 0, -1));
+        return merge(results, comparator(orders), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 샤드 하나면 offset/limit를 그대로 넘기고,
+     * 여러 샤드면 각 샤드에서 정렬된 앞쪽 (offset + size)건을 가져와서 병합 후 offset 만큼 건너뜀.
+     * -> 뒤쪽 페이지일수록 샤드마다 읽는 행이 늘어남 (깊은 페이지는 조건을 좁혀서 조회)
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(search(condition, pageable.getSort()));
+        }
+
+        MemberCondition where = MemberCondition.compile(condition);
+        List<Sort.Order> orders = resolve(pageable.getSort());
+        List<Integer> targets = route(where);
+
+        List<MemberTeamDto> content;
+        if (targets.size() == 1) {
+            content = query(targets.get(0), where, orders, pageable.getOffset(), pageable.getPageSize());
+        } else {
+            long limit = pageable.getOffset() + pageable.getPageSize();
+            List<List<MemberTeamDto>> results = fanOut(targets, shard -> query(shard, where, orders, 0, limit));
+            content = merge(results, comparator(orders), pageable.getOffset(), pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(where, targets));
+    }
+
+    public long count(MemberSearchCondition condition) {
+        MemberCondition where = MemberCondition.compile(condition);
+        return count(where, route(where));
+    }
+
+    private long count(MemberCondition where, List<Integer> targets) {
+        return fanOut(targets, shard -> {
+            StringBuilder sql = new StringBuilder("select count(*) from member m");
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            appendWhere(sql, params, where);
+            return shards.get(shard).queryForObject(sql.toString(), params, Long.class);
+        }).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * teamName 조건이 있으면 그 팀의 샤드 하나, 없는 팀이면 조회할 샤드 없음
+     */
+    private List<Integer> route(MemberCondition where) {
+        if (where.getTeamName() == null) {
+            return IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+        }
+        Long teamId = teamIdsByName.get(where.getTeamName());
+        return teamId == null ? List.of() : List.of(shardOf(teamId));
+    }
+
+    private List<MemberTeamDto> query(int shard, MemberCondition where, List<Sort.Order> orders, long offset, long limit) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        appendWhere(sql, params, where);
+
+        sql.append(" order by ");
+        sql.append(orders.stream()
+                .map(order -> SORT_COLUMNS.get(order.getProperty()) + (order.isAscending() ? " asc nulls first" : " desc nulls last"))
+                .collect(Collectors.joining(", ")));
+
+        if (limit >= 0) {
+            sql.append(" offset :offset rows fetch next :limit rows only");
+            params.addValue("offset", offset).addValue("limit", limit);
+        }
+        return shards.get(shard).query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /**
+     * teamName은 route()에서 샤드를 고를 때 이미 팀 id로 바꿨으므로 join 없이 team_id로 조회
+     */
+    private void appendWhere(StringBuilder sql, MapSqlParameterSource params, MemberCondition where) {
+        List<String> conditions = new ArrayList<>();
+        if (where.getUsername() != null) {
+            conditions.add("m.username = :username");
+            params.addValue("username", where.getUsername());
+        }
+        if (where.getTeamName() != null) {
+            conditions.add("m.team_id = :teamId");
+            params.addValue("teamId", teamIdsByName.get(where.getTeamName()));
+        }
+        if (where.getAgeGoe() != null) {
+            conditions.add("m.age >= :ageGoe");
+            params.addValue("ageGoe", where.getAgeGoe());
+        }
+        if (where.getAgeLoe() != null) {
+            conditions.add("m.age <= :ageLoe");
+            params.addValue("ageLoe", where.getAgeLoe());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" where ").append(String.join(" and ", conditions));
+        }
+    }
+
+    /**
+     * 정렬 속성 검증 + member.id를 마지막 정렬로 (샤드별 결과와 병합 결과의 순서가 같아지도록)
+     */
+    private List<Sort.Order> resolve(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (!SORT_COLUMNS.containsKey(order.getProperty())) {
+                throw new UnsupportedSortException("정렬할 수 없는 속성입니다: " + order.getProperty() + " (가능: " + SORT_COLUMNS.keySet() + ")");
+            }
+            orders.add(order);
+        }
+        if (sort.getOrderFor("memberId") == null) {
+            orders.add(orders.isEmpty() || orders.get(0).isAscending() ? Sort.Order.asc("memberId") : Sort.Order.desc("memberId"));
+        }
+        return orders;
+    }
+
+    private Comparator<MemberTeamDto> comparator(List<Sort.Order> orders) {
+        Comparator<MemberTeamDto> result = null;
+        for (Sort.Order order : orders) {
+            Comparator<MemberTeamDto> next = SORT_COMPARATORS.get(order.getProperty());
+            if (order.isDescending()) {
+                next = next.reversed(); // nullsFirst의 역순 = desc nulls last, SQL과 같음
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+
+    /**
+     * 각각 정렬된 목록들을 k-way 병합 - 앞에서 offset건 건너뛰고 limit건
+     * 우선순위 큐에는 목록마다 현재 맨 앞 원소 하나씩만 들어감 -> O((offset + limit) log k)
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedLists, Comparator<MemberTeamDto> comparator, long offset, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(sortedLists.size(), 1),
+                (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<MemberTeamDto> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(head.current());
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 샤드 하나면 현재 스레드에서, 여러 개면 샤드 스레드풀에서 동시에 실행 (결과는 targets 순서)
+     */
+    private <T> List<T> fanOut(List<Integer> targets, IntFunction<T> task) {
+        if (targets.size() <= 1) {
+            return targets.stream().map(task::apply).collect(Collectors.toList());
+        }
+
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> task.apply(shard), executor))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private long insertTeam(String name) {
+        int shard = nextShard();
+        long id = nextId(shard, "team_seq", teamIds[shard]);
+        shards.get(shard).update("insert into team (team_id, name) values (:teamId, :name)",
+                new MapSqlParameterSource("teamId", id).addValue("name", name));
+        return id;
+    }
+
+    /**
+     * 각 샤드의 team 테이블에서 팀 이름 -> id 목록을 다시 만듦
+     * 같은 이름이 여러 샤드에 있으면(샤드 URL 변경 등) 항상 같은 팀이 선택되도록 작은 id 사용
+     */
+    private void loadTeams() {
+        for (NamedParameterJdbcTemplate shard : shards) {
+            shard.getJdbcTemplate().query("select team_id, name from team",
+                    rs -> {
+                        String name = rs.getString("name");
+                        long teamId = rs.getLong("team_id");
+                        Long existing = teamIdsByName.putIfAbsent(name, teamId);
+                        if (existing != null) {
+                            teamIdsByName.put(name, Math.min(existing, teamId));
+                            log.warn("duplicate team name across shards. name={}, teamIds={}, {}", name, existing, teamId);
+                        }
+                    });
+        }
+    }
+
+    private int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shards.size());
+    }
+
+    /**
+     * 시퀀스 값 하나로 ID_BLOCK_SIZE개의 id를 메모리에서 꺼내 씀 (PooledSequenceGenerator와 같은 방식)
+     */
+    private long nextId(int shard, String sequence, IdBlock block) {
+        synchronized (block) {
+            if (block.next == block.limit) {
+                Long hi = shards.get(shard).getJdbcTemplate().queryForObject("select next value for " + sequence, Long.class);
+                block.next = hi;
+                block.limit = hi + ID_BLOCK_SIZE;
+            }
+            long local = block.next++;
+            return local * shards.size() + shard;
+        }
+    }
+
+    private static MapSqlParameterSource memberParams(long id, String username, int age, Long teamId) {
+        return new MapSqlParameterSource("memberId", id)
+                .addValue("username", username)
+                .addValue("age", age)
+                .addValue("teamId", teamId);
+    }
+
+    private static IdBlock[] newIdBlocks(int count) {
+        IdBlock[] blocks = new IdBlock[count];
+        for (int i = 0; i < count; i++) {
+            blocks[i] = new IdBlock();
+        }
+        return blocks;
+    }
+
+    /**
+     * 테스트용 - 모든 샤드의 데이터 삭제
+     */
+    void deleteAll() {
+        for (NamedParameterJdbcTemplate shard : shards) {
+            shard.getJdbcTemplate().update("delete from member");
+            shard.getJdbcTemplate().update("delete from team");
+        }
+        teamIdsByName.clear();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static class IdBlock {
+        long next;
+        long limit;
+    }
+
+    private static class Cursor {
+        private final List<MemberTeamDto> list;
+        private int index;
+
+        Cursor(List<MemberTeamDto> list) {
+            this.list = list;
+        }
+
+        MemberTeamDto current() {
+            return list.get(index);
+        }
+
+        boolean advance() {
+            return ++index < list.size();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.warmup;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 엔드포인트별 첫 요청 처리 시간 기록 (워밍업 효과 확인용)
+ */
+@Component
+public class FirstRequestTimerFilter extends OncePerRequestFilter {
+
+    private final WarmupReport report;
+
+    public FirstRequestTimerFilter(MemberSearchWarmup memberSearchWarmup) {
+        this.report = memberSearchWarmup.getReport();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                String endpoint = request.getMethod() + " " + pattern;
+                if (!report.hasFirstRequest(endpoint)) {
+                    report.firstRequest(endpoint, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberPagingStrategy;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.UnsupportedSortException;
+
+import java.util.List;
+
+/**
+ * 시작시 검색 쿼리 워밍업
+ *
+ * 배포 직후 첫 요청들은 JPQL 파싱, hibernate 쿼리 플랜 생성, querydsl 직렬화, JIT 컴파일 때문에 몇 배 느림.
+ * 조건 4개(username, teamName, ageGoe, ageLoe)의 조합(조건 없음 제외 15가지)과 정렬 조합으로 실제 DB에 검색을 미리 실행한다.
+ * 쿼리 플랜은 어떤 조건이 있는지로 정해지고 값과는 상관 없으므로, 값은 아무 행도 맞지 않는 것을 씀 -> count, 인덱스 없는 정렬도 빈 결과라 싸다.
+ * 조건이 없는 검색은 어떤 값으로도 전체 테이블 조회(/v1 전체 목록, 전체 count)를 피할 수 없어서 워밍업하지 않음.
+ * ApplicationRunner는 ApplicationReadyEvent 전에 실행되므로, readiness 상태가 ACCEPTING_TRAFFIC으로 바뀌기 전에 끝남.
+ */
+@Slf4j
+@Component
+public class MemberSearchWarmup implements ApplicationRunner {
+
+    // 아무 행도 맞지 않는 조건 값 (나이는 음수가 없음)
+    private static final String NO_MATCH_USERNAME = "__warmup__";
+    private static final String NO_MATCH_TEAM_NAME = "__warmup__";
+    private static final int NO_MATCH_AGE_GOE = Integer.MAX_VALUE;
+    private static final int NO_MATCH_AGE_LOE = -1;
+
+    private static final List<Sort> SORTS = List.of(
+            Sort.unsorted(),
+            Sort.by("username"),
+            Sort.by(Sort.Direction.DESC, "age"),
+            Sort.by("teamName")
+    );
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WarmupReport report = new WarmupReport();
+    private final boolean enabled;
+    private final int iterations;
+
+    public MemberSearchWarmup(MemberJpaRepository memberJpaRepository,
+                              MemberRepository memberRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${member.warmup.enabled:false}") boolean enabled,
+                              @Value("${member.warmup.iterations:20}") int iterations) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int executed = 0;
+        int failed = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (int shape = 1; shape < 16; shape++) { // 비트마다 조건 하나씩 켜고 끔, 0(조건 없음)은 제외
+                MemberSearchCondition condition = condition(shape);
+                for (Sort sort : SORTS) {
+                    try {
+                        executed += transactionTemplate.execute(status -> search(condition, PageRequest.of(0, 20, sort)));
+                    } catch (UnsupportedSortException e) { // MemberOrderResolver가 거부하는 정렬은 건너뜀 (빈 결과라 실제로는 없음)
+                        log.debug("warmup sort skipped. condition={}, sort={}", condition, sort);
+                    } catch (RuntimeException e) { // 워밍업 실패로 기동이 막히면 안됨
+                        failed++;
+                        if (failed == 1) {
+                            log.warn("warmup query failed. condition={}, sort={}", condition, sort, e);
+                        }
+                    }
+                }
+            }
+        }
+
+        report.complete(System.nanoTime() - start, executed, failed);
+        log.info("member search warmup finished. {} ms, {} searches, {} failed", report.getWarmupMillis(), executed, failed);
+    }
+
+    public WarmupReport getReport() {
+        return report;
+    }
+
+    /**
+     * /v1 ~ /v3 에서 사용하는 검색들
+     * @return 실행한 검색 수
+     */
+    private int search(MemberSearchCondition condition, Pageable pageable) {
+        int count = 0;
+        if (pageable.getSort().isUnsorted()) { // /v1은 정렬 없음
+            memberJpaRepository.searchByWhere(condition);
+            memberRepository.search(condition);
+            count += 2;
+        }
+        memberRepository.searchPageSimple(condition, pageable);
+        memberRepository.searchPageComplex(condition, pageable);
+        memberRepository.searchPage(condition, pageable, MemberPagingStrategy.DEFERRED_JOIN);
+        return count + 3;
+    }
+
+    private MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) {
+            condition.setUsername(NO_MATCH_USERNAME);
+        }
+        if ((shape & 2) != 0) {
+            condition.setTeamName(NO_MATCH_TEAM_NAME);
+        }
+        if ((shape & 4) != 0) {
+            condition.setAgeGoe(NO_MATCH_AGE_GOE);
+        }
+        if ((shape & 8) != 0) {
+            condition.setAgeLoe(NO_MATCH_AGE_LOE);
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+public class WarmupController {
+
+    private final MemberSearchWarmup memberSearchWarmup;
+
+    /**
+     * 워밍업 소요 시간 + 엔드포인트별 첫 요청 시간
+     */
+    @GetMapping("/diagnostics/warmup")
+    public WarmupReport warmup() {
+        return memberSearchWarmup.getReport();
+    }
+}
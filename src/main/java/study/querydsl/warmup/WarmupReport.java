@@ -0,0 +1,51 @@
+package study.querydsl.warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 워밍업 결과 + 엔드포인트별 첫 요청 처리 시간
+ */
+public class WarmupReport {
+
+    private volatile boolean completed;
+    private volatile long warmupMillis;
+    private volatile int executedQueries;
+    private volatile int failedQueries;
+    private final Map<String, Double> firstRequestMillis = new ConcurrentHashMap<>();
+
+    void complete(long warmupNanos, int executedQueries, int failedQueries) {
+        this.warmupMillis = warmupNanos / 1_000_000;
+        this.executedQueries = executedQueries;
+        this.failedQueries = failedQueries;
+        this.completed = true;
+    }
+
+    void firstRequest(String endpoint, long elapsedNanos) {
+        firstRequestMillis.putIfAbsent(endpoint, elapsedNanos / 1_000_000d);
+    }
+
+    boolean hasFirstRequest(String endpoint) {
+        return firstRequestMillis.containsKey(endpoint);
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    public int getExecutedQueries() {
+        return executedQueries;
+    }
+
+    public int getFailedQueries() {
+        return failedQueries;
+    }
+
+    public Map<String, Double> getFirstRequestMillis() {
+        return firstRequestMillis;
+    }
+}
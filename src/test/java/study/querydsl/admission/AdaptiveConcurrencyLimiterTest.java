@@ -0,0 +1,163 @@
+package study.querydsl.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void rejectWhenLimitAndQueueAreFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0, 100, 100, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse(); // 대기열 0 - 바로 거절
+
+        assertThat(limiter.snapshot().getInFlight()).isEqualTo(2);
+        assertThat(limiter.snapshot().getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void queuedRequestGetsReleasedPermit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, 5_000, 100, 0.5);
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(limiter::tryAcquire);
+        while (limiter.snapshot().getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        assertThat(limiter.tryAcquire()).isFalse(); // 대기열(1) 꽉 참
+
+        limiter.release(FAST, true);
+        assertThat(queued.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.snapshot().getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void queuedRequestTimesOut() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, 20, 100, 0.5);
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void limitAdaptsToLatency() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 16, 0, 0, 1, 0.5);
+
+        // 느린 응답 - 감소 (targetLatency 마다 한번)
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, true);
+            Thread.sleep(2);
+        }
+        assertThat(limiter.snapshot().getLimit()).isEqualTo(2); // 8 -> 4 -> 2 -> 2(min)
+
+        // limit가 꽉 찬 상태에서 빠른 응답 - 증가
+        for (int i = 0; i < 20; i++) {
+            while (limiter.tryAcquire()) {
+            }
+            limiter.release(FAST, true);
+        }
+        assertThat(limiter.snapshot().getLimit()).isGreaterThan(2);
+
+        // 실패도 감소
+        int before = limiter.snapshot().getLimit();
+        Thread.sleep(2);
+        limiter.release(FAST, false);
+        assertThat(limiter.snapshot().getLimit()).isLessThan(before);
+    }
+
+    @Test
+    public void interceptorRejectsWith503() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        properties.setMaxQueue(0);
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(properties);
+
+        MockHttpServletRequest first = request();
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(first, firstResponse, new Object())).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request(), rejected, new Object())).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("3");
+
+        interceptor.afterCompletion(first, firstResponse, new Object(), null);
+        assertThat(interceptor.getLimiters().get("GET /v1/members").snapshot().getInFlight()).isZero();
+        assertThat(interceptor.preHandle(request(), new MockHttpServletResponse(), new Object())).isTrue();
+    }
+
+    // 가상 스레드 모드 - 엔드포인트가 달라도 커넥션 풀 limiter는 같이 씀 (DispatcherServlet처럼 admission -> pool 순서로 호출)
+    @Test
+    public void connectionPoolLimiterIsSharedAcrossEndpoints() throws Exception {
+        AdaptiveConcurrencyLimiter connectionPoolLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, 0, 100, 0.9);
+        ConnectionPoolLimitInterceptor pool = new ConnectionPoolLimitInterceptor(connectionPoolLimiter, Duration.ofSeconds(2));
+        AdmissionControlInterceptor admission = new AdmissionControlInterceptor(new AdmissionProperties());
+
+        MockHttpServletRequest v1 = request("/v1/members");
+        MockHttpServletResponse v1Response = new MockHttpServletResponse();
+        assertThat(admission.preHandle(v1, v1Response, new Object())).isTrue();
+        assertThat(pool.preHandle(v1, v1Response, new Object())).isTrue();
+
+        MockHttpServletRequest v3 = request("/v3/members");
+        MockHttpServletResponse v3Response = new MockHttpServletResponse();
+        assertThat(admission.preHandle(v3, v3Response, new Object())).isTrue();
+        assertThat(pool.preHandle(v3, v3Response, new Object())).isFalse();
+        assertThat(v3Response.getStatus()).isEqualTo(503);
+        assertThat(v3Response.getHeader("Retry-After")).isEqualTo("2");
+        admission.afterCompletion(v3, v3Response, new Object(), null); // preHandle이 true였던 interceptor만 호출됨
+        AdaptiveConcurrencyLimiter.Snapshot v3Limiter = admission.getLimiters().get("GET /v3/members").snapshot();
+        assertThat(v3Limiter.getInFlight()).isZero(); // 엔드포인트 permit은 돌려줌
+        assertThat(v3Limiter.getSlow()).isZero(); // 풀에서 거절된 503은 엔드포인트 limit을 줄이지 않음
+
+        pool.afterCompletion(v1, v1Response, new Object(), null);
+        admission.afterCompletion(v1, v1Response, new Object(), null);
+        assertThat(connectionPoolLimiter.snapshot().getInFlight()).isZero();
+    }
+
+    // admission control 대상이 아닌 엔드포인트(대량 등록 등)도 커넥션 풀 limiter는 적용
+    @Test
+    public void connectionPoolLimiterWithoutAdmission() throws Exception {
+        AdaptiveConcurrencyLimiter connectionPoolLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, 0, 100, 0.9);
+        ConnectionPoolLimitInterceptor pool = new ConnectionPoolLimitInterceptor(connectionPoolLimiter, Duration.ofSeconds(1));
+
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/v1/members/import");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        assertThat(pool.preHandle(first, firstResponse, new Object())).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(pool.preHandle(new MockHttpServletRequest("GET", "/diagnostics/hibernate"), rejected, new Object())).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        pool.afterCompletion(first, firstResponse, new Object(), null);
+        assertThat(connectionPoolLimiter.snapshot().getInFlight()).isZero();
+        assertThat(connectionPoolLimiter.snapshot().getRejected()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request() {
+        return request("/v1/members");
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
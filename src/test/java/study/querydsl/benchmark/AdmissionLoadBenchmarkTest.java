@@ -0,0 +1,144 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.support.ContextVariant;
+
+import javax.persistence.EntityManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * /v1/members 부하 테스트 - 동시 사용자 수를 늘려가며 goodput(SLO 안에 성공한 요청/초) 측정
+ * admission control 켠 것/끈 것 비교 : 켜면 포화 이후에도 goodput 유지, 끄면 지연시간이 늘어나 goodput 감소
+ *   ./gradlew benchmark --tests '*AdmissionLoadBenchmarkTest*'
+ *
+ * 요청이 실제 HTTP로 들어와야 해서 서버를 띄우고, 데이터는 커밋 후 끝나면 삭제
+ */
+@Tag("benchmark")
+class AdmissionLoadBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 20_000;
+    private static final int[] CONCURRENCY = {4, 8, 16, 32, 64, 128};
+    private static final Duration STEP = Duration.ofSeconds(10);
+    private static final Duration SLO = Duration.ofMillis(500);
+
+    @LocalServerPort int port;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Value("${member.admission.enabled}") boolean admission;
+
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    static Stream<ContextVariant> admissionModes() {
+        return Stream.of(
+                ContextVariant.web("admission on", "member.admission.enabled=true"),
+                ContextVariant.web("admission off", "member.admission.enabled=false"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("admissionModes")
+    public void goodputPastSaturation(ContextVariant variant) throws Exception {
+        try (ConfigurableApplicationContext context = variant.start(this)) {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.executeWithoutResult(status -> BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10));
+            try {
+                measure();
+            } finally {
+                tx.executeWithoutResult(status -> {
+                    em.createQuery("delete from Member").executeUpdate();
+                    em.createQuery("delete from Team").executeUpdate();
+                });
+            }
+        }
+    }
+
+    private void measure() throws InterruptedException {
+        URI uri = URI.create("http://localhost:" + port + "/v1/members?teamName=team3"); // 페이징 없는 검색 - 2000건
+        run(uri, 4, Duration.ofSeconds(3)); // 워밍업
+
+        System.out.println("admission,concurrency,ok,rejected,errors,goodputPerSecond,p50Millis,p99Millis");
+        for (int concurrency : CONCURRENCY) {
+            Result result = run(uri, concurrency, STEP);
+            System.out.printf("%s,%d,%d,%d,%d,%.1f,%d,%d%n", admission, concurrency, result.ok, result.rejected, result.errors,
+                    result.good / (double) STEP.getSeconds(), result.percentile(0.5), result.percentile(0.99));
+        }
+    }
+
+    /**
+     * concurrency개의 클라이언트가 duration 동안 쉬지 않고 요청 (응답을 받으면 바로 다음 요청 - closed loop)
+     */
+    private Result run(URI uri, int concurrency, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        result.record(response.statusCode(), System.nanoTime() - start);
+                        if (response.statusCode() == 503) {
+                            Thread.sleep(50); // Retry-After 대신 짧게 쉬고 재시도 - 부하는 유지하면서 거절 응답만 반복하는 busy loop 방지
+                        }
+                    } catch (Exception e) {
+                        result.record(-1, System.nanoTime() - start);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.getSeconds() + 60, TimeUnit.SECONDS);
+        return result;
+    }
+
+    private static class Result {
+        long ok;
+        long rejected;
+        long errors;
+        long good;
+        final List<Long> okLatencies = new ArrayList<>();
+
+        synchronized void record(int status, long latencyNanos) {
+            if (status == 200) {
+                ok++;
+                okLatencies.add(latencyNanos);
+                if (latencyNanos <= SLO.toNanos()) {
+                    good++;
+                }
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                errors++;
+            }
+        }
+
+        synchronized long percentile(double p) {
+            if (okLatencies.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(okLatencies);
+            Collections.sort(sorted);
+            return TimeUnit.NANOSECONDS.toMillis(sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size()))));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드의 할당량, GC 횟수/시간, 걸린 시간, 최대 heap 사용량 측정
+ * (JMH -prof gc 대신 테스트 안에서 간단히 확인하는 용도)
+ */
+public class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static <T> Result<T> measure(Supplier<T> task) {
+        long threadId = Thread.currentThread().getId();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        resetPeakHeap();
+        long start = System.nanoTime();
+
+        T value = task.get();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result<>(value, allocated, gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore, elapsedNanos, peakHeap());
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * heap 영역(eden, old 등)별 최대 사용량의 합 - 영역별 최대 시점이 달라서 근사값
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    public static class Result<T> {
+        public final T value;
+        public final long allocatedBytes;
+        public final long gcCount;
+        public final long gcTimeMillis;
+        public final long elapsedNanos;
+        public final long peakHeapBytes;
+
+        Result(T value, long allocatedBytes, long gcCount, long gcTimeMillis, long elapsedNanos, long peakHeapBytes) {
+            this.value = value;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcTimeMillis = gcTimeMillis;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("allocated=%,d bytes, gc=%d (%d ms), elapsed=%,d ms, peakHeap=%,d bytes",
+                    allocatedBytes, gcCount, gcTimeMillis, elapsedNanos / 1_000_000, peakHeapBytes);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.benchmark;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 성능 측정용 데이터 생성
+ */
+public class BenchmarkFixture {
+
+    /**
+     * 팀 teamCount개, 회원 memberCount명 저장 (회원 i는 팀 i % teamCount, 나이 i % 100)
+     * 1000건 마다 flush, clear 해서 영속성 컨텍스트가 커지지 않게 함
+     */
+    public static void insertMembers(EntityManager em, int memberCount, int teamCount) {
+        Team[] teams = new Team[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teams[i] = new Team("team" + i);
+            em.persist(teams[i]);
+        }
+
+        for (int i = 0; i < memberCount; i++) {
+            em.persist(new Member("member" + i, i % 100, teams[i % teamCount]));
+            if (i % 1000 == 999) {
+                em.flush();
+                em.clear();
+                for (int t = 0; t < teamCount; t++) {
+                    teams[t] = em.getReference(Team.class, teams[t].getId());
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * search() (List<MemberTeamDto>) vs searchColumns() (primitive 배열) 할당량/GC 비교
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info") // 쿼리 로그가 측정에 섞이지 않게
+@Transactional
+class ColumnarResultBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 100_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void dtoListVsColumns() {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 워밍업
+        memberRepository.search(condition);
+        memberRepository.searchColumns(condition);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            AllocationMeter.Result<List<MemberTeamDto>> dto = AllocationMeter.measure(() -> memberRepository.search(condition));
+            AllocationMeter.Result<MemberTeamColumns> columns = AllocationMeter.measure(() -> memberRepository.searchColumns(condition));
+
+            assertThat(columns.value.size()).isEqualTo(dto.value.size());
+            System.out.println("round " + round + " dto     : " + dto);
+            System.out.println("round " + round + " columns : " + columns);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberPagingStrategy;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OFFSET vs DEFERRED_JOIN 페이징 - offset 0 ~ 1M
+ * ./gradlew benchmark
+ *
+ * 두 방식 모두 member.id 정렬을 명시 - 같은 결과를 내는 쿼리끼리 비교 (정렬이 없으면 DB가 고르는 실행 계획에 따라 유불리가 갈림)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+@Transactional
+class DeferredJoinBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 1_000_010;
+    private static final int PAGE_SIZE = 10;
+    private static final int[] OFFSETS = {0, 1_000, 10_000, 100_000, 500_000, 1_000_000};
+    private static final int ROUNDS = 5;
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void offsetVsDeferredJoin() {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        System.out.println("offset,strategy,avgMillis");
+        for (int offset : OFFSETS) {
+            PageRequest pageRequest = PageRequest.of(offset / PAGE_SIZE, PAGE_SIZE, Sort.by("memberId"));
+            List<Long> expected = null;
+            for (MemberPagingStrategy strategy : MemberPagingStrategy.values()) {
+                List<Long> ids = ids(memberRepository.searchPage(condition, pageRequest, strategy)); // 워밍업
+                if (expected == null) {
+                    expected = ids;
+                }
+                assertThat(ids).as("%s 결과가 OFFSET과 같아야 함", strategy).isEqualTo(expected);
+
+                long elapsed = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    memberRepository.searchPage(condition, pageRequest, strategy);
+                    elapsed += System.nanoTime() - start;
+                    em.clear();
+                }
+                System.out.printf("%d,%s,%.2f%n", offset, strategy, elapsed / (double) ROUNDS / 1_000_000);
+            }
+        }
+    }
+
+    private static List<Long> ids(Page<MemberTeamDto> page) {
+        return page.getContent().stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 엔드포인트별 JFR 할당/CPU 프로파일 - 같은 요청을 정해진 횟수만큼 보내면서 녹화
+ * 결과: build/reports/jfr-profile/<url>.json (이전 결과는 .previous.json, 단계별 요청당 증감은 콘솔 출력)
+ *
+ * allocationByStage로 querydsl 식 생성 / JPQL 직렬화 / HQL 변환 / hibernate 결과 처리 / DTO 생성 / jackson 비중 확인
+ * ./gradlew benchmark --tests '*EndpointProfileBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=info", // 쿼리 로그가 측정에 섞이지 않게
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.cache.enabled=false" // 매 요청 실제 조회
+})
+@AutoConfigureMockMvc
+@Transactional
+class EndpointProfileBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 10_000;
+    private static final int WARMUP = 200;
+    private static final int REQUESTS = 500;
+    private static final Path REPORT_DIR = Path.of("build", "reports", "jfr-profile");
+
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void profileEndpoints() throws Exception {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+
+        String[] urls = {
+                "/v1/members?teamName=team1&ageGoe=50",
+                "/v1/members?teamName=team1&ageGoe=50&fields=memberId,username",
+                "/v2/members?teamName=team1&page=3&size=20",
+                "/v3/members?teamName=team1&page=3&size=20",
+                "/v3/members?page=3&size=20&sort=username,desc",
+        };
+
+        for (String url : urls) {
+            for (int i = 0; i < WARMUP; i++) { // JIT, 쿼리 계획 캐시가 안정된 뒤 측정
+                call(url);
+            }
+            em.clear();
+
+            Map<String, Object> report = JfrProfile.record(url, REQUESTS, () -> call(url));
+            Map<String, Long> diff = JfrProfile.write(REPORT_DIR, report);
+
+            assertThat((Long) report.get("sampledAllocatedBytes")).isPositive();
+            System.out.printf("%s avg=%.2f ms, allocated/request=%,d bytes%n", url, report.get("avgMillis"), report.get("sampledAllocatedBytesPerRequest"));
+            System.out.println("  by stage: " + report.get("allocationByStage"));
+            if (!diff.isEmpty()) {
+                System.out.println("  bytes/request vs previous run: " + diff);
+            }
+        }
+    }
+
+    private void call(String url) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.benchmark;
+
+import org.hibernate.engine.spi.ManagedEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 영속성 컨텍스트에 회원 100k명이 있을 때 flush 비용
+ * 바이트코드 향상 전/후 비교 :
+ *   ./gradlew benchmark --tests '*FlushBenchmarkTest'
+ *   ./gradlew clean benchmark --tests '*FlushBenchmarkTest' -PhibernateEnhance=false
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+@Transactional
+class FlushBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 100_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired EntityManager em;
+
+    @Test
+    public void flushManagedEntities() {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList(); // 100k 영속 상태
+        System.out.println("enhanced = " + ManagedEntity.class.isAssignableFrom(Member.class) + ", managed = " + members.size());
+
+        System.out.println("round,changed,flushMillis");
+        for (int round = 0; round < ROUNDS; round++) {
+            // 변경 없는 flush - 스냅샷 비교 비용만
+            long start = System.nanoTime();
+            em.flush();
+            System.out.printf("%d,%d,%.2f%n", round, 0, (System.nanoTime() - start) / 1_000_000d);
+
+            // 1%만 변경
+            for (int i = round; i < members.size(); i += 100) {
+                Member member = members.get(i);
+                member.setAge(member.getAge() + 1);
+            }
+            start = System.nanoTime();
+            em.flush();
+            System.out.printf("%d,%d,%.2f%n", round, members.size() / 100, (System.nanoTime() - start) / 1_000_000d);
+        }
+    }
+}
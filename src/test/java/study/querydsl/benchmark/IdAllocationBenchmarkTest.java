@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.support.ContextVariant;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Stream;
+
+/**
+ * MemberJpaRepository.save 로 insert 할 때 allocation size(1, 50, 500)별 초당 저장 건수
+ * allocation size는 SessionFactory 생성시 정해지므로 크기별로 스프링 컨텍스트를 따로 띄움 (ContextVariant)
+ * 저장한 회원은 끝나면 롤백
+ * ./gradlew benchmark --tests '*IdAllocationBenchmarkTest*'
+ */
+@Tag("benchmark")
+class IdAllocationBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 50_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Value("${spring.jpa.properties.querydsl.id.allocation_size}") int allocationSize;
+
+    static Stream<ContextVariant> allocationSizes() {
+        return Stream.of(1, 50, 500)
+                .map(size -> ContextVariant.of("allocationSize=" + size, "spring.jpa.properties.querydsl.id.allocation_size=" + size));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("allocationSizes")
+    public void insertThroughput(ContextVariant variant) {
+        try (ConfigurableApplicationContext context = variant.start(this)) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                measure();
+                status.setRollbackOnly();
+            });
+        }
+    }
+
+    private void measure() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        save(1_000, team); // 워밍업
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            save(MEMBER_COUNT, team);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+            System.out.printf("allocationSize=%d, round=%d, rows/sec=%.0f%n", allocationSize, round, MEMBER_COUNT / seconds);
+        }
+    }
+
+    private void save(int count, Team team) {
+        for (int i = 0; i < count; i++) {
+            memberJpaRepository.save(new Member("member" + i, i % 100, team));
+            if (i % 1000 == 999) {
+                em.flush();
+                em.clear();
+                team = em.getReference(Team.class, team.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,244 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JFR 녹화로 작업 하나의 할당량(단계별, 패키지별, 할당 위치)과 CPU hot method 측정
+ *
+ * - 현재 스레드에서 발생한 이벤트만 셈 (MockMvc는 요청을 호출한 스레드에서 처리)
+ * - 할당은 샘플 이벤트의 가중치(bytes) 합 - 정확한 값이 아니라 비율을 보는 용도
+ * - 결과는 키 순서가 고정된 JSON -> 빌드끼리 diff 가능
+ */
+public class JfrProfile {
+
+    private static final int TOP = 20;
+
+    /**
+     * 스택을 할당 위치(맨 위)부터 내려가며 처음 맞는 prefix로 단계 분류 - 위에 있는 규칙이 우선
+     */
+    private static final String[][] STAGES = {
+            {"com.fasterxml.jackson.", "jackson"},
+            {"org.springframework.http.converter.", "jackson"},
+            {"study.querydsl.dto.", "dto-projection"},
+            {"com.querydsl.core.types.ConstructorUtils", "dto-projection"},
+            {"com.querydsl.core.types.ConstructorExpression", "dto-projection"},
+            {"com.querydsl.jpa.impl.JPAProvider", "jpql-serialization"},
+            {"com.querydsl.jpa.JPQLSerializer", "jpql-serialization"},
+            {"com.querydsl.core.support.SerializerBase", "jpql-serialization"},
+            {"com.querydsl.jpa.JPQLTemplates", "jpql-serialization"},
+            {"org.hibernate.hql.", "hql-translation"},
+            {"org.hibernate.engine.query.", "hql-translation"},
+            {"org.hibernate.loader.", "hibernate-hydration"},
+            {"org.hibernate.type.", "hibernate-hydration"},
+            {"org.hibernate.engine.internal.TwoPhaseLoad", "hibernate-hydration"},
+            {"org.hibernate.", "hibernate-other"},
+            {"com.querydsl.", "querydsl-expressions"},
+            {"org.h2.", "jdbc-driver"},
+            {"com.p6spy.", "jdbc-driver"},
+            {"com.zaxxer.hikari.", "jdbc-driver"},
+            {"study.querydsl.benchmark.", "harness"}, // 측정 코드 자체 (MockMvc 요청 생성 등)
+            {"study.querydsl.", "application"},
+            {"org.springframework.", "spring"},
+    };
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String name;
+    private final long threadId;
+    private final Recording recording = new Recording();
+
+    private JfrProfile(String name) {
+        this.name = name;
+        this.threadId = Thread.currentThread().getId();
+        if (Runtime.version().feature() >= 16) {
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "10000/s").withStackTrace();
+        } else { // JDK 11~15 - TLAB 이벤트
+            recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+            recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+        }
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10)).withStackTrace();
+    }
+
+    /**
+     * 현재 스레드에서 task를 requests번 실행하는 동안 녹화
+     */
+    public static Map<String, Object> record(String name, int requests, ThrowingRunnable task) throws Exception {
+        JfrProfile profile = new JfrProfile(name);
+        profile.recording.start();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            task.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        profile.recording.stop();
+
+        Path file = Files.createTempFile("profile-", ".jfr");
+        try {
+            profile.recording.dump(file);
+            return profile.report(RecordingFile.readAllEvents(file), requests, elapsedNanos);
+        } finally {
+            profile.recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Map<String, Object> report(List<RecordedEvent> events, int requests, long elapsedNanos) {
+        Map<String, Long> byStage = new HashMap<>();
+        Map<String, Long> byPackage = new HashMap<>();
+        Map<String, Long> bySite = new HashMap<>();
+        Map<String, Long> hotMethods = new HashMap<>();
+        long allocated = 0;
+        long samples = 0;
+
+        for (RecordedEvent event : events) {
+            String type = event.getEventType().getName();
+            if (type.equals("jdk.ExecutionSample")) {
+                if (isCurrentThread(event.getThread("sampledThread")) && event.getStackTrace() != null
+                        && !event.getStackTrace().getFrames().isEmpty()) {
+                    hotMethods.merge(methodName(event.getStackTrace().getFrames().get(0)), 1L, Long::sum);
+                    samples++;
+                }
+                continue;
+            }
+            if (!isCurrentThread(event.getThread()) || event.getStackTrace() == null) {
+                continue;
+            }
+
+            long bytes = allocationWeight(event, type);
+            allocated += bytes;
+            RecordedStackTrace stackTrace = event.getStackTrace();
+            byStage.merge(stage(stackTrace), bytes, Long::sum);
+
+            RecordedFrame site = firstNonJdkFrame(stackTrace);
+            if (site != null) {
+                String className = site.getMethod().getType().getName();
+                int dot = className.lastIndexOf('.');
+                byPackage.merge(dot < 0 ? "" : className.substring(0, dot), bytes, Long::sum);
+                bySite.merge(methodName(site), bytes, Long::sum);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("name", name);
+        report.put("jdk", Runtime.version().toString());
+        report.put("requests", requests);
+        report.put("avgMillis", elapsedNanos / (double) requests / 1_000_000);
+        report.put("sampledAllocatedBytes", allocated);
+        report.put("sampledAllocatedBytesPerRequest", allocated / requests);
+        report.put("allocationByStage", sortedByValue(byStage, Integer.MAX_VALUE));
+        report.put("allocationByPackage", sortedByValue(byPackage, TOP));
+        report.put("allocationSites", sortedByValue(bySite, TOP));
+        report.put("executionSamples", samples);
+        report.put("hotMethods", sortedByValue(hotMethods, TOP));
+        return report;
+    }
+
+    /**
+     * report를 JSON으로 저장, 같은 이름의 이전 결과가 있으면 .previous.json으로 옮기고 단계별 증감 반환
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Long> write(Path dir, Map<String, Object> report) throws IOException {
+        Files.createDirectories(dir);
+        String fileName = report.get("name").toString().replaceAll("[^A-Za-z0-9._-]", "_");
+        Path current = dir.resolve(fileName + ".json");
+        Path previous = dir.resolve(fileName + ".previous.json");
+
+        Map<String, Long> diff = new LinkedHashMap<>();
+        if (Files.exists(current)) {
+            Files.move(current, previous, StandardCopyOption.REPLACE_EXISTING);
+            Map<String, Object> before = objectMapper.readValue(previous.toFile(), Map.class);
+            Map<String, Number> beforeStages = (Map<String, Number>) before.getOrDefault("allocationByStage", Map.of());
+            Map<String, Long> afterStages = (Map<String, Long>) report.get("allocationByStage");
+            long requests = ((Number) report.get("requests")).longValue();
+            long beforeRequests = ((Number) before.get("requests")).longValue();
+            for (String stage : afterStages.keySet()) {
+                long beforeBytes = beforeStages.containsKey(stage) ? beforeStages.get(stage).longValue() / beforeRequests : 0;
+                diff.put(stage, afterStages.get(stage) / requests - beforeBytes);
+            }
+        }
+        objectMapper.writeValue(current.toFile(), report);
+        return diff;
+    }
+
+    private long allocationWeight(RecordedEvent event, String type) {
+        switch (type) {
+            case "jdk.ObjectAllocationSample":
+                return event.getLong("weight");
+            case "jdk.ObjectAllocationInNewTLAB":
+                return event.getLong("tlabSize");
+            default:
+                return event.getLong("allocationSize");
+        }
+    }
+
+    private boolean isCurrentThread(RecordedThread thread) {
+        return thread != null && thread.getJavaThreadId() == threadId;
+    }
+
+    private static String stage(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String className = frame.getMethod().getType().getName();
+            for (String[] rule : STAGES) {
+                if (className.startsWith(rule[0])) {
+                    return rule[1];
+                }
+            }
+        }
+        return stackTrace.isTruncated() ? "unknown(truncated)" : "other";
+    }
+
+    private static RecordedFrame firstNonJdkFrame(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String className = frame.getMethod().getType().getName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.")
+                    && !className.startsWith("sun.") && !className.startsWith("com.sun.")) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static String methodName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    /**
+     * 값 내림차순, 같으면 키 순서 - 실행할 때마다 순서가 같아야 diff 하기 쉬움
+     */
+    private static Map<String, Long> sortedByValue(Map<String, Long> counts, int limit) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
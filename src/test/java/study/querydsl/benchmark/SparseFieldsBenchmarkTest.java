@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 전체 필드 vs fields=memberId,username 응답 크기, 시간 비교
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+@AutoConfigureMockMvc
+@Transactional
+class SparseFieldsBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 50_000;
+    private static final int ROUNDS = 10;
+
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void allFieldsVsSparseFields() throws Exception {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+
+        String[] urls = {
+                "/v1/members",
+                "/v1/members?fields=memberId,username",
+                "/v2/members?size=1000",
+                "/v2/members?size=1000&fields=memberId,username",
+        };
+
+        System.out.println("url,bytes,avgMillis");
+        for (String url : urls) {
+            call(url); // 워밍업
+
+            long bytes = 0;
+            long elapsed = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                MvcResult result = call(url);
+                elapsed += System.nanoTime() - start;
+                bytes = result.getResponse().getContentAsByteArray().length;
+                em.clear();
+            }
+            System.out.printf("%s,%d,%.2f%n", url, bytes, elapsed / (double) ROUNDS / 1_000_000);
+        }
+    }
+
+    private MvcResult call(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+}
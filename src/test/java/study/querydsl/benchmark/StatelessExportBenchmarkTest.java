@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberLoadOptions;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 200k명 전체 읽기 - findAll()(영속성 컨텍스트) vs forEachChunk()(id 구간 chunk + clear) vs export()(StatelessSession + scroll) fetch size별
+ * heap 최대 사용량, 할당량, 초당 행 수 비교
+ *   ./gradlew benchmark --tests '*StatelessExportBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+@Transactional
+class StatelessExportBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 200_000;
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void exportVsFindAll() {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10);
+
+        System.out.println("mode,fetchOrChunkSize,rows,elapsedMillis,rowsPerSecond,allocatedMB,peakHeapMB,gcCount");
+        for (int round = 0; round < 2; round++) { // 첫 round는 워밍업
+            report("findAll", 0, AllocationMeter.measure(() -> {
+                List<Member> members = memberJpaRepository.findAll();
+                LongAdder checksum = new LongAdder();
+                members.forEach(m -> consume(m, checksum));
+                em.clear();
+                return (long) members.size();
+            }));
+
+            for (int chunkSize : new int[]{100, 1_000}) {
+                report("forEachChunk", chunkSize, AllocationMeter.measure(() -> {
+                    LongAdder checksum = new LongAdder();
+                    return memberJpaRepository.forEachChunk(null, chunkSize, MemberLoadOptions.fetchJoin(),
+                            chunk -> chunk.forEach(m -> consume(m, checksum)));
+                }));
+            }
+
+            for (int fetchSize : new int[]{10, 100, 1_000, 10_000}) {
+                report("export", fetchSize, AllocationMeter.measure(() -> {
+                    LongAdder checksum = new LongAdder();
+                    return memberJpaRepository.export(null, fetchSize, m -> consume(m, checksum));
+                }));
+            }
+        }
+    }
+
+    // 내보내기에서 하는 일 대신 - 회원, 팀 필드 읽기
+    private static void consume(Member member, LongAdder checksum) {
+        checksum.add(member.getAge() + member.getUsername().length() + member.getTeam().getName().length());
+    }
+
+    private static void report(String mode, int fetchSize, AllocationMeter.Result<Long> result) {
+        System.out.printf("%s,%d,%d,%d,%.0f,%.1f,%.1f,%d%n",
+                mode, fetchSize, result.value,
+                result.elapsedNanos / 1_000_000,
+                result.value * 1_000_000_000d / result.elapsedNanos,
+                result.allocatedBytes / 1_048_576d,
+                result.peakHeapBytes / 1_048_576d,
+                result.gcCount);
+        System.gc(); // 다음 측정의 최대 heap 사용량에 영향 없도록
+    }
+}
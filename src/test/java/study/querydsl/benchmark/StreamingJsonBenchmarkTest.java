@@ -0,0 +1,93 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 1M명 - List 응답(/v1/members) vs 스트리밍 응답(/v1/members?stream=true)
+ * 첫 바이트까지 시간, 전체 시간, 응답 중 heap 최대 사용량 비교
+ *
+ * 실제 서버(RANDOM_PORT)에 HTTP로 요청 - MockMvc는 응답 전체를 메모리에 모으므로 측정이 안됨
+ * 서버 스레드가 데이터를 봐야 해서 커밋함 -> 끝나고 직접 삭제
+ *   ./gradlew benchmark --tests '*StreamingJsonBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.hibernate.SQL=info",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.cache.enabled=false"
+})
+class StreamingJsonBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 1_000_000;
+
+    @LocalServerPort int port;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void listVsStream() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10));
+
+        System.out.println("mode,bytes,timeToFirstByteMillis,totalMillis,peakHeapMB,gcCount");
+        for (int round = 0; round < 2; round++) { // 첫 round는 워밍업
+            long listBytes = report("list", "/v1/members");
+            long streamBytes = report("stream", "/v1/members?stream=true");
+            assertThat(streamBytes).isEqualTo(listBytes); // 같은 JSON
+        }
+    }
+
+    private long report(String mode, String path) {
+        long[] ttfb = new long[1];
+        AllocationMeter.Result<Long> result = AllocationMeter.measure(() -> download(path, ttfb));
+        System.out.printf("%s,%d,%d,%d,%.1f,%d%n",
+                mode, result.value,
+                ttfb[0] / 1_000_000,
+                result.elapsedNanos / 1_000_000,
+                result.peakHeapBytes / 1_048_576d,
+                result.gcCount);
+        System.gc(); // 다음 측정의 최대 heap 사용량에 영향 없도록
+        return result.value;
+    }
+
+    private long download(String path, long[] ttfb) {
+        long start = System.nanoTime();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+            try (InputStream in = connection.getInputStream()) {
+                int first = in.read();
+                ttfb[0] = System.nanoTime() - start;
+                assertThat(first).isEqualTo('[');
+                return 1 + in.transferTo(OutputStream.nullOutputStream());
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
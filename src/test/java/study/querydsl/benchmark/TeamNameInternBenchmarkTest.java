@@ -0,0 +1,83 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 팀 이름 중복 제거 전/후 teamName 문자열이 차지하는 heap 비교
+ * 중복 제거 전 = JDBC처럼 행마다 새 문자열 (바이트에서 다시 만들어서 재현)
+ * new String(String)은 JDK 9+ 에서 원본의 byte[]를 공유하므로 String 객체 크기만 늘어남 -> 쓰지 않음
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info") // 쿼리 로그가 측정에 섞이지 않게
+@Transactional
+class TeamNameInternBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 100_000;
+    private static final int TEAM_COUNT = 10;
+
+    private static final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void teamNameHeapWithAndWithoutInterning() {
+        BenchmarkFixture.insertMembers(em, MEMBER_COUNT, TEAM_COUNT);
+        List<MemberTeamDto> result = memberRepository.search(new MemberSearchCondition());
+        assertThat(result).hasSize(MEMBER_COUNT);
+
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MemberTeamDto dto : result) {
+            instances.add(dto.getTeamName());
+        }
+        assertThat(instances).hasSize(TEAM_COUNT);
+
+        // 같은 크기의 배열에 각각 담아서 GC 후 증가량 비교 (배열 자체 크기는 같으므로 차이 = 문자열)
+        long before = usedHeapAfterGc();
+        String[] copies = new String[MEMBER_COUNT];
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            String teamName = result.get(i).getTeamName();
+            copies[i] = new String(teamName.getBytes(UTF_8), UTF_8); // byte[]까지 새로 - 드라이버가 행마다 만드는 문자열과 같음
+        }
+        long withCopies = usedHeapAfterGc() - before;
+
+        before = usedHeapAfterGc();
+        String[] shared = new String[MEMBER_COUNT];
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            shared[i] = result.get(i).getTeamName();
+        }
+        long withShared = usedHeapAfterGc() - before;
+
+        System.out.printf("teamName instances: %,d -> %,d%n", MEMBER_COUNT, instances.size());
+        System.out.printf("retained heap: per-row strings=%,d bytes, interned=%,d bytes, saved=%,d bytes (%.1f bytes/row)%n",
+                withCopies, withShared, withCopies - withShared, (withCopies - withShared) / (double) MEMBER_COUNT);
+        assertThat(copies.length + shared.length).isEqualTo(MEMBER_COUNT * 2); // 측정 끝날 때까지 참조 유지
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+}
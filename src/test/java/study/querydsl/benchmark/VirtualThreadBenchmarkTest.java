@@ -0,0 +1,160 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.execution.VirtualThreads;
+import study.querydsl.support.ContextVariant;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 동시 클라이언트 1k ~ 10k 에서 톰캣 스레드풀(플랫폼 스레드) vs 가상 스레드 처리량, 메모리 비교
+ *   ./gradlew benchmark --tests '*VirtualThreadBenchmarkTest*'   (가상 스레드 쪽은 Java 21 이상 JVM에서 실행해야 측정됨)
+ *
+ * 클라이언트는 HttpClient 비동기 요청(스레드 몇 개로 10k 동시 요청) - 응답을 받으면 바로 다음 요청 (closed loop)
+ * 같은 JVM이라 스레드 수, heap은 서버 + 클라이언트 합계 (클라이언트 쪽은 두 모드가 같음)
+ * 파일 디스크립터가 동시 연결 수보다 많아야 함 (ulimit -n)
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 10_000;
+    private static final int[] CLIENTS = {1_000, 2_500, 5_000, 10_000};
+    private static final Duration STEP = Duration.ofSeconds(15);
+
+    @LocalServerPort int port;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Value("${member.execution.virtual-threads}") boolean virtualThreads;
+
+    // 두 모드 모두 대기열을 크게 - 거절보다는 스레드 모델 차이가 드러나도록
+    static Stream<ContextVariant> threadModels() {
+        return Stream.of(
+                ContextVariant.web("platform threads",
+                        "member.execution.virtual-threads=false",
+                        "server.tomcat.threads.max=200",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "member.admission.max-queue=20000",
+                        "member.admission.max-wait=10s"),
+                ContextVariant.web("virtual threads",
+                        "member.execution.virtual-threads=true",
+                        "member.execution.pool-max-queue=20000",
+                        "member.execution.pool-max-wait=10s",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "member.admission.max-queue=20000",
+                        "member.admission.max-wait=10s"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("threadModels")
+    public void throughputAndMemory(ContextVariant variant) throws Exception {
+        try (ConfigurableApplicationContext context = variant.start(this)) {
+            Assumptions.assumeTrue(!virtualThreads || VirtualThreads.isSupported(), "가상 스레드를 지원하지 않는 JVM");
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.executeWithoutResult(status -> BenchmarkFixture.insertMembers(em, MEMBER_COUNT, 10));
+            try {
+                measure();
+            } finally {
+                tx.executeWithoutResult(status -> {
+                    em.createQuery("delete from Member").executeUpdate();
+                    em.createQuery("delete from Team").executeUpdate();
+                });
+            }
+        }
+    }
+
+    private void measure() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/v3/members?ageGoe=10&ageLoe=20&page=0&size=20");
+        run(client, uri, 100, Duration.ofSeconds(5)); // 워밍업
+
+        System.out.println("virtualThreads,clients,ok,rejected,errors,requestsPerSecond,meanLatencyMillis,peakThreads,heapUsedMB");
+        for (int clients : CLIENTS) {
+            System.gc();
+            Result result = run(client, uri, clients, STEP);
+            System.out.printf("%s,%d,%d,%d,%d,%.1f,%.1f,%d,%.1f%n", virtualThreads, clients,
+                    result.ok.sum(), result.rejected.sum(), result.errors.sum(),
+                    result.ok.sum() / (double) STEP.getSeconds(),
+                    result.ok.sum() == 0 ? 0 : result.okLatencyNanos.sum() / 1_000_000d / result.ok.sum(),
+                    result.peakThreads, result.heapUsedBytes / 1_048_576d);
+        }
+    }
+
+    /**
+     * 클라이언트마다 응답을 받으면 다음 요청을 보내는 비동기 체인 - duration이 지나면 멈춤
+     */
+    private Result run(HttpClient client, URI uri, int clients, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(clients);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        for (int i = 0; i < clients; i++) {
+            send(client, request, deadline, result, done);
+        }
+        done.await(duration.getSeconds() + 120, TimeUnit.SECONDS);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        result.peakThreads = threads.getPeakThreadCount();
+        result.heapUsedBytes = memory.getHeapMemoryUsage().getUsed();
+        return result;
+    }
+
+    private void send(HttpClient client, HttpRequest request, long deadline, Result result, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        result.errors.increment();
+                    } else if (response.statusCode() == 200) {
+                        result.ok.increment();
+                        result.okLatencyNanos.add(System.nanoTime() - start);
+                    } else if (response.statusCode() == 503) {
+                        result.rejected.increment();
+                    } else {
+                        result.errors.increment();
+                    }
+                    send(client, request, deadline, result, done);
+                });
+    }
+
+    private static class Result {
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder okLatencyNanos = new LongAdder();
+        int peakThreads;
+        long heapUsedBytes;
+    }
+}
@@ -0,0 +1,157 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션 안에서는 캐시를 거치지 않으므로 @Transactional 없이 실제로 커밋함 -> 끝나고 직접 삭제
+ * hot-threshold: 3
+ */
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberSearchCache memberSearchCache;
+    @Autowired HotConditionTracker hotConditionTracker;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    AtomicInteger loads = new AtomicInteger();
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        hotConditionTracker.reset();
+        memberSearchCache.clear();
+
+        member1Id = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            return member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        hotConditionTracker.reset();
+        memberSearchCache.clear();
+    }
+
+    @Test
+    public void onlyHotConditionsAreCached() {
+        MemberSearchCondition teamA = condition("teamA", null);
+
+        // 1, 2번째 - hot 아님, 매번 조회
+        search(teamA);
+        search(teamA);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(memberSearchCache.contains(teamA)).isFalse();
+
+        // 3번째 - hot -> 조회 후 캐시에 넣음
+        search(teamA);
+        assertThat(memberSearchCache.contains(teamA)).isTrue();
+
+        // 4번째부터 캐시
+        List<MemberTeamDto> result = search(teamA);
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+        // 빈 문자열 = 조건 없음 -> 같은 조건으로 정규화
+        MemberSearchCondition sameWithBlank = condition("teamA", null);
+        sameWithBlank.setUsername("");
+        search(sameWithBlank);
+        assertThat(loads.get()).isEqualTo(3);
+
+        assertThat(memberSearchCache.stats().getHits()).isEqualTo(2);
+        assertThat(hotConditionTracker.top(1).get(0).getTeamName()).isEqualTo("teamA");
+        assertThat(hotConditionTracker.top(1).get(0).getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void narrowerConditionIsServedFromCoveringEntry() {
+        MemberSearchCondition teamB = condition("teamB", null);
+        for (int i = 0; i < 3; i++) {
+            search(teamB);
+        }
+        assertThat(memberSearchCache.contains(teamB)).isTrue();
+
+        // teamB + 나이 35 이상 -> teamB 결과를 메모리에서 필터링, 조회 없음
+        List<MemberTeamDto> result = search(condition("teamB", 35));
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(memberSearchCache.stats().getCoveredHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void committedChangeEvictsAffectedEntries() {
+        MemberSearchCondition teamA = condition("teamA", null);
+        MemberSearchCondition over25 = condition(null, 25);
+        for (int i = 0; i < 3; i++) {
+            search(teamA);
+            search(over25);
+        }
+        assertThat(memberSearchCache.contains(teamA)).isTrue();
+        assertThat(memberSearchCache.contains(over25)).isTrue();
+
+        // member1 나이 10 -> 11: 25 이상 조건에는 변경 전/후 모두 해당 없음 -> 유지
+        tx.executeWithoutResult(status -> em.find(Member.class, member1Id).setAge(11));
+        assertThat(memberSearchCache.contains(teamA)).isFalse(); // teamName은 이벤트로 알 수 없음 -> 삭제
+        assertThat(memberSearchCache.contains(over25)).isTrue();
+
+        // 트랜잭션 안의 조회는 캐시를 거치지 않음
+        tx.executeWithoutResult(status -> search(over25));
+        assertThat(memberSearchCache.stats().getBypassed()).isEqualTo(1);
+
+        // 벌크 연산 -> 전체 삭제
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkAddAge(condition(null, null), 1));
+        assertThat(memberSearchCache.contains(over25)).isFalse();
+
+        int before = loads.get();
+        List<MemberTeamDto> result = search(teamA);
+        assertThat(loads.get()).isEqualTo(before + 1);
+        assertThat(result).extracting("age").containsExactlyInAnyOrder(12, 21);
+    }
+
+    private List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return memberSearchCache.search(condition, () -> {
+            loads.incrementAndGet();
+            return memberJpaRepository.searchByWhere(condition);
+        });
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    public void heavyHittersSurviveEviction() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(3, 0);
+
+        for (int i = 0; i < 10; i++) {
+            sketch.offer("hot");
+        }
+        // 한번씩만 나오는 키가 많아도 hot은 밀려나지 않음
+        for (int i = 0; i < 20; i++) {
+            sketch.offer("cold" + i);
+        }
+
+        assertThat(sketch.guaranteed("hot")).isEqualTo(10);
+        List<SpaceSaving.Entry<String>> top = sketch.top(1);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).key).isEqualTo("hot");
+
+        // 빼앗은 카운터는 error만큼 과대 추정 -> 최소 보장 횟수는 작음
+        String last = "cold19";
+        assertThat(sketch.estimate(last)).isGreaterThan(1);
+        assertThat(sketch.guaranteed(last)).isEqualTo(1);
+        assertThat(sketch.estimate("cold0")).isEqualTo(0); // 추적 중 아님
+    }
+
+    @Test
+    public void decayHalvesCounters() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(3, 10);
+
+        for (int i = 0; i < 9; i++) {
+            sketch.offer("old");
+        }
+        assertThat(sketch.estimate("old")).isEqualTo(9);
+
+        sketch.offer("new"); // 10번째 기록 -> 먼저 절반으로
+        assertThat(sketch.estimate("old")).isEqualTo(4);
+        assertThat(sketch.estimate("new")).isEqualTo(1);
+    }
+}
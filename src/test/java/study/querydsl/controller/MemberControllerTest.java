@@ -0,0 +1,131 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.ExpectStatements;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+
+    @BeforeEach // 여기서 실행된 쿼리는 @ExpectStatements에 포함되지 않음
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @ExpectStatements(max = 1)
+    public void searchMemberV1() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+
+    @Test
+    public void searchMemberStreamV1() throws Exception {
+        String list = mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andReturn().getResponse().getContentAsString();
+
+        // DTO 목록을 Jackson으로 직렬화한 것과 같은 JSON
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA").param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(list, true));
+    }
+
+    @Test
+    public void searchMemberStreamV1_fields() throws Exception {
+        mockMvc.perform(get("/v1/members").param("stream", "true").param("fields", "memberId"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @ExpectStatements(max = 1)
+    public void searchMemberFieldsV1() throws Exception {
+        mockMvc.perform(get("/v1/members").param("fields", "memberId,username"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].teamName").doesNotExist());
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // 컨텐츠 + count - 마지막 페이지여도 v2는 항상 셈
+    public void searchMemberFieldsV2() throws Exception {
+        mockMvc.perform(get("/v2/members").param("fields", "memberId,username").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.content[0].age").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(10));
+    }
+
+    @Test
+    @ExpectStatements(max = 1) // 마지막 페이지인게 확실하면 count 생략 (searchMemberV3와 같음)
+    public void searchMemberFieldsV3() throws Exception {
+        mockMvc.perform(get("/v3/members").param("fields", "memberId,username").param("size", "20").param("count", "CAPPED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.totalElements").value(10))
+                .andExpect(jsonPath("$.totalApproximate").value(false));
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // 컨텐츠 + count
+    public void searchMemberV2() throws Exception {
+        mockMvc.perform(get("/v2/members").param("size", "3").param("sort", "age,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("member9"))
+                .andExpect(jsonPath("$.totalElements").value(10));
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // 컨텐츠 + count
+    public void searchMemberV3() throws Exception {
+        mockMvc.perform(get("/v3/members").param("ageGoe", "30").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.totalElements").value(7));
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // 컨텐츠 + id 최대 cap + 1개
+    public void searchMemberV3_countCapped() throws Exception {
+        mockMvc.perform(get("/v3/members").param("ageGoe", "30").param("size", "3").param("count", "CAPPED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(7)) // cap보다 적으면 정확한 값
+                .andExpect(jsonPath("$.totalApproximate").value(false));
+    }
+
+    @Test
+    public void searchMemberV3_허용하지않는정렬() throws Exception {
+        mockMvc.perform(get("/v3/members").param("sort", "team.id"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.diagnostics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "diagnostics.hibernate.response-headers=true")
+@AutoConfigureMockMvc
+@Transactional
+class HibernateStatsFilterTest {
+
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+    @Autowired HibernateStatsFilter hibernateStatsFilter;
+
+    @Test
+    public void responseHeadersAndEndpointStats() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        hibernateStatsFilter.reset();
+
+        // when, then
+        mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Hibernate-Statements", "1")) // DTO 조회 1번
+                .andExpect(header().string("X-Hibernate-Entities-Loaded", "0")); // DTO라 엔티티 로딩 없음
+
+        mockMvc.perform(get("/diagnostics/hibernate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints['GET /v1/members'].requests").value(1))
+                .andExpect(jsonPath("$.endpoints['GET /v1/members'].statements").value(1))
+                .andExpect(jsonPath("$.global.statisticsEnabled").value(true));
+    }
+
+    @Test
+    public void streamingResponseIsNotBuffered() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+        hibernateStatsFilter.reset();
+
+        // when, then
+        mockMvc.perform(get("/v1/members").param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Hibernate-Statements")); // 본문을 버퍼링하지 않으니 헤더도 없음
+
+        mockMvc.perform(get("/diagnostics/hibernate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints['GET /v1/members'].requests").value(1)) // 누적 통계는 그대로
+                .andExpect(jsonPath("$.endpoints['GET /v1/members'].statements").value(1)); // JdbcTemplate로 실행한 쿼리도 셈
+    }
+}
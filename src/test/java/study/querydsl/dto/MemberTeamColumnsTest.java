@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberTeamColumnsTest {
+
+    @Test
+    public void teamDictionaryGrows() {
+        MemberTeamColumns columns = new MemberTeamColumns(1);
+
+        // 팀 100개(사전, id 표 모두 여러 번 커짐), 팀마다 회원 3명 + 팀 없는 회원 1명
+        for (int i = 0; i < 300; i++) {
+            long teamId = 1_000 + (i % 100) * 64L; // 같은 칸에 몰리기 쉬운 간격
+            columns.add(i + 1, "member" + i, i % 50, teamId, "team" + (i % 100));
+        }
+        columns.add(301, "noTeam", 10, 0, null);
+
+        assertThat(columns.size()).isEqualTo(301);
+        assertThat(columns.getTeamCount()).isEqualTo(100);
+        for (int row = 0; row < 300; row++) {
+            assertThat(columns.getTeamId(row)).isEqualTo(1_000 + (row % 100) * 64L);
+            assertThat(columns.getTeamName(row)).isEqualTo("team" + (row % 100));
+        }
+        assertThat(columns.hasTeam(300)).isFalse();
+        assertThat(columns.toDto(300).getTeamId()).isNull();
+    }
+}
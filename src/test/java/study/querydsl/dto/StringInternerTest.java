@@ -0,0 +1,46 @@
+package study.querydsl.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringInternerTest {
+
+    @Test
+    public void equalValuesShareOneInstance() {
+        StringInterner interner = new StringInterner(16, 8);
+
+        String first = interner.intern(new String("teamA"));
+        String second = interner.intern(new String("teamA"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(interner.intern(null)).isNull();
+    }
+
+    @Test
+    public void longValuesAreNotCached() {
+        StringInterner interner = new StringInterner(16, 8);
+        String longName = new String("a-very-long-team-name");
+
+        assertThat(interner.intern(longName)).isSameAs(longName);
+        assertThat(interner.intern(new String("a-very-long-team-name"))).isNotSameAs(longName);
+    }
+
+    @Test
+    public void tableSizeIsBounded() {
+        StringInterner interner = new StringInterner(4, 16);
+
+        // 슬롯보다 많은 값이 들어와도 값은 항상 같음 (충돌하면 중복 제거만 못함)
+        for (int i = 0; i < 1000; i++) {
+            String value = "team" + i;
+            assertThat(interner.intern(value)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void memberTeamDtoSharesTeamName() {
+        MemberTeamDto dto1 = new MemberTeamDto(1L, "member1", 10, 1L, new String("teamA"));
+        MemberTeamDto dto2 = new MemberTeamDto(2L, "member2", 20, 1L, new String("teamA"));
+        assertThat(dto2.getTeamName()).isSameAs(dto1.getTeamName()); // MemberTeamDto는 TEAM_NAMES 사용
+    }
+}
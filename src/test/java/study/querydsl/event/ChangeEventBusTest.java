@@ -0,0 +1,150 @@
+package study.querydsl.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.event.ChangeEvent.ChangeType.*;
+import static study.querydsl.event.ChangeEvent.EntityType.MEMBER;
+import static study.querydsl.event.ChangeEvent.EntityType.TEAM;
+
+/**
+ * 커밋 후 발행을 확인해야 해서 @Transactional 없이 실제로 커밋함 -> 끝나고 직접 삭제
+ */
+@SpringBootTest
+class ChangeEventBusTest {
+
+    @Autowired EntityManager em;
+    @Autowired ChangeEventBus changeEventBus;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    List<List<ChangeEvent>> batches = new CopyOnWriteArrayList<>();
+    Consumer<List<ChangeEvent>> subscriber = batches::add;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        changeEventBus.subscribe(subscriber);
+    }
+
+    @AfterEach
+    public void after() {
+        changeEventBus.unsubscribe(subscriber);
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void eventsArePublishedAfterCommitPerTransaction() {
+        // insert - 트랜잭션 1개 = 발행 1번
+        Long memberId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member = new Member("member1", 10, teamA);
+            em.persist(member);
+            em.persist(new Member("member2", 20, teamA));
+            assertThat(batches).isEmpty(); // 커밋 전에는 발행 안함
+            return member.getId();
+        });
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(ChangeEvent::getEntityType).containsExactly(TEAM, MEMBER, MEMBER);
+        assertThat(batches.get(0)).extracting(ChangeEvent::getChangeType).containsOnly(INSERT);
+        assertThat(batches.get(0).get(1).getState()).containsEntry("username", "member1").containsEntry("age", 10);
+
+        // update - 수정 전 값 포함
+        tx.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(11));
+
+        ChangeEvent update = batches.get(1).get(0);
+        assertThat(update.getChangeType()).isEqualTo(UPDATE);
+        assertThat(update.getId()).isEqualTo(memberId);
+        assertThat(update.getState()).containsEntry("age", 11);
+        assertThat(update.getPreviousState()).containsEntry("age", 10);
+
+        // rollback - 발행 안함
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(batches).hasSize(2);
+
+        // 벌크 연산 - 무효화 이벤트
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkAddAge(new MemberSearchCondition(), 1));
+        assertThat(batches.get(2)).containsExactly(batches.get(2).get(0));
+        assertThat(batches.get(2).get(0).getChangeType()).isEqualTo(INVALIDATE);
+        assertThat(batches.get(2).get(0).getEntityType()).isEqualTo(MEMBER);
+    }
+
+    @Test
+    public void jpqlAndNativeWritesArePublishedAsInvalidate() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+        batches.clear();
+
+        // 리포지토리를 거치지 않은 JPQL 벌크 연산, 네이티브 SQL
+        tx.executeWithoutResult(status -> {
+            em.createQuery("update Member m set m.age = m.age + 1").executeUpdate();
+            em.createNativeQuery("update team set name = 'teamB'").executeUpdate();
+            assertThat(batches).isEmpty(); // 커밋 전에는 발행 안함
+        });
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(ChangeEvent::getChangeType).containsOnly(INVALIDATE);
+        assertThat(batches.get(0)).extracting(ChangeEvent::getEntityType).containsExactly(MEMBER, TEAM);
+
+        // flush 중에 실행되는 SQL은 엔티티 이벤트만 (무효화 없음)
+        tx.executeWithoutResult(status -> em.persist(new Member("member2", 20, null)));
+        assertThat(batches.get(1)).extracting(ChangeEvent::getChangeType).containsExactly(INSERT);
+    }
+
+    @Test
+    public void writtenTableIgnoresReadsAndOtherTables() {
+        assertThat(BulkWriteStatementInspector.writtenTable("delete from member where age>?")).isEqualTo(MEMBER);
+        assertThat(BulkWriteStatementInspector.writtenTable("/* update Member */ update member set age=age+?")).isEqualTo(MEMBER);
+        assertThat(BulkWriteStatementInspector.writtenTable("insert into PUBLIC.TEAM (name) values (?)")).isEqualTo(TEAM);
+        assertThat(BulkWriteStatementInspector.writtenTable("select m.member_id from member m")).isNull();
+        assertThat(BulkWriteStatementInspector.writtenTable("update member_id_block set next_val=?")).isNull();
+    }
+
+    @Test
+    public void requiresNewTransactionHasItsOwnBuffer() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        tx.executeWithoutResult(status -> {
+            changeEventBus.invalidate(TEAM);
+            requiresNew.executeWithoutResult(inner -> changeEventBus.invalidate(MEMBER));
+
+            // 안쪽 트랜잭션 커밋 -> 안쪽 이벤트만 발행
+            assertThat(batches).hasSize(1);
+            assertThat(batches.get(0)).extracting(ChangeEvent::getEntityType).containsExactly(MEMBER);
+
+            changeEventBus.invalidate(TEAM); // 재개된 바깥 트랜잭션은 원래 버퍼에 이어서 기록
+            status.setRollbackOnly();
+        });
+
+        assertThat(batches).hasSize(1); // 바깥은 롤백 - 바깥 이벤트만 버려짐
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋 후 이벤트로 갱신되므로 @Transactional 없이 실제로 커밋함 -> 끝나고 직접 삭제
+ */
+@SpringBootTest
+class MemberAgeHistogramTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberAgeHistogram histogram;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        member1Id = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 40, null));
+            return member1.getId();
+        });
+        rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        rebuild(); // 벌크 삭제로 stale -> 다른 테스트를 위해 바로 다시 셈
+    }
+
+    @Test
+    public void countsAgeAndTeamConditions() {
+        assertThat(count(null, null, null)).hasValue(5);
+        assertThat(count(null, 20, 40)).hasValue(4);
+        assertThat(count("teamA", null, 15)).hasValue(1);
+        assertThat(count("teamB", 35, null)).hasValue(1);
+        assertThat(count("teamC", null, null)).hasValue(0);
+        assertThat(count(null, 50, 10)).hasValue(0);
+
+        // username 조건은 답할 수 없음
+        MemberSearchCondition byName = new MemberSearchCondition();
+        byName.setUsername("member1");
+        assertThat(histogram.count(MemberCondition.compile(byName))).isEmpty();
+    }
+
+    @Test
+    public void committedChangesAreApplied() {
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setAge(35);
+            member1.changeTeam(findTeam("teamB"));
+            em.persist(new Member("member6", 25, findTeam("teamA")));
+        });
+        assertThat(count("teamA", null, null)).hasValue(2); // member2, member6
+        assertThat(count("teamB", 30, 39)).hasValue(2); // member3, member1
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+        assertThat(count("teamB", 30, 39)).hasValue(1);
+
+        // 팀 이름 변경
+        tx.executeWithoutResult(status -> findTeam("teamB").setName("teamC"));
+        assertThat(count("teamB", null, null)).hasValue(0);
+        assertThat(count("teamC", null, null)).hasValue(2);
+    }
+
+    @Test
+    public void bulkUpdateMakesHistogramStaleUntilRebuilt() {
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkAddAge(new MemberSearchCondition(), 1));
+        rebuild();
+        assertThat(count(null, 41, 41)).hasValue(2);
+
+        // 쓰기 트랜잭션 안에서는 사용 안함 - 커밋 안된 변경이 있을 수 있음
+        tx.executeWithoutResult(status -> assertThat(count(null, null, null)).isEmpty());
+    }
+
+    @Test
+    public void nativeUpdateNeverLeavesWrongCount() {
+        tx.executeWithoutResult(status -> em.createNativeQuery("update member set age = age + 1").executeUpdate());
+        OptionalLong afterUpdate = count(null, 41, 41);
+        assertThat(afterUpdate.isEmpty() || afterUpdate.getAsLong() == 2).isTrue(); // stale이거나 이미 다시 셈 - 수정 전 값(0)은 안나옴
+
+        rebuild();
+        assertThat(count(null, 41, 41)).hasValue(2);
+    }
+
+    @Test
+    public void rebuildIsDiscardedWhileWriteTransactionIsPending() {
+        // 쓰기 트랜잭션 안에서 다시 세면 그 트랜잭션의 이벤트가 아직 발행 전 -> 버림 (커밋되면 센 값 + 이벤트로 두번 반영될 수 있음)
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member6", 25, null));
+            em.flush();
+            assertThat(histogram.rebuild()).isFalse();
+            status.setRollbackOnly();
+        });
+        assertThat(count(null, null, null)).hasValue(5); // 롤백된 member6은 세지 않음
+
+        rebuild(); // 새 트랜잭션에서 커밋된 값만
+        assertThat(count(null, null, null)).hasValue(5);
+    }
+
+    @Test
+    public void estimateUsesLastCountInsideWriteTransaction() {
+        MemberSearchCondition all = new MemberSearchCondition();
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member6", 25, null));
+            em.flush();
+            assertThat(histogram.count(MemberCondition.compile(all))).isEmpty();
+            assertThat(histogram.estimate(MemberCondition.compile(all))).hasValue(5); // 커밋 안된 member6은 빠짐
+        });
+    }
+
+    @Test
+    public void pagingCountUsesHistogramWithoutSql() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        statistics.clear();
+
+        long total = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getTotalElements();
+
+        assertThat(total).isEqualTo(4);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1); // 컨텐츠 쿼리만
+    }
+
+    private OptionalLong count(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return histogram.count(MemberCondition.compile(condition));
+    }
+
+    private Team findTeam(String name) {
+        return em.createQuery("select t from Team t where t.name = :name", Team.class)
+                .setParameter("name", name)
+                .getSingleResult();
+    }
+
+    private void rebuild() {
+        int attempts = 0;
+        while (!histogram.rebuild() && ++attempts < 10) { // 주기적 재계산과 겹치면 다시
+        }
+        assertThat(histogram.isStale()).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberConditionTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+
+    // DB 조건(where)과 메모리 조건(test)의 결과가 같은지 - 조건 16가지 조합 모두
+    @Test
+    public void whereAndTestAreEquivalent() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + (i % 5), i * 5, i % 3 == 0 ? null : (i % 3 == 1 ? teamA : teamB)));
+        }
+
+        List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member1" : "");
+            condition.setTeamName((shape & 2) != 0 ? "teamA" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 70 : null);
+
+            // when
+            List<MemberTeamDto> fromDb = memberRepository.search(condition);
+            List<MemberTeamDto> inMemory = all.stream()
+                    .filter(MemberCondition.compile(condition))
+                    .collect(Collectors.toList());
+
+            // then
+            assertThat(inMemory).as("shape %d", shape).containsExactlyInAnyOrderElementsOf(fromDb);
+        }
+    }
+
+    @Test
+    public void covers() {
+        MemberCondition broader = condition(null, "teamA", 10, null);
+
+        assertThat(broader.covers(condition("member1", "teamA", 20, 30))).isTrue();
+        assertThat(broader.covers(condition(null, "teamA", 10, null))).isTrue();
+        assertThat(broader.covers(condition(null, null, 20, 30))).isFalse(); // 다른 팀까지 포함
+        assertThat(broader.covers(condition(null, "teamA", 5, 30))).isFalse(); // 나이 범위가 더 넓음
+        assertThat(MemberCondition.compile(null).covers(broader)).isTrue();
+    }
+
+    @Test
+    public void 빈문자열은_조건없음과_같음() {
+        assertThat(condition("", " ", null, null)).isEqualTo(MemberCondition.compile(new MemberSearchCondition()));
+        assertThat(MemberCondition.compile(new MemberSearchCondition()).toPredicate()).isNull();
+    }
+
+    private MemberCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return MemberCondition.compile(condition);
+    }
+}
@@ -1,6 +1,8 @@
 package study.querydsl.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -9,10 +11,13 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.ExpectStatements;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +33,7 @@ class MemberJpaRepositoryTest {
 
     // 기본적인 만들어둔 함수들이 정상 작동하는지 확인하기 위한 테스트
     @Test
+    @ExpectStatements(max = 2) // findById는 영속성 컨텍스트에서, findAll + findByUsername
     public void basicTest() throws Exception {
         // given
         Member member = new Member("member1", 10);
@@ -48,6 +54,7 @@ class MemberJpaRepositoryTest {
 
     // Querydsl 버전 함수들이 정상 작동하는지 확인하기 위한 테스트
     @Test
+    @ExpectStatements(max = 2) // findAll_Querydsl + findByUsername_Querydsl
     public void basicQuerydslTest() throws Exception {
         // given
         Member member = new Member("member1", 10);
@@ -68,6 +75,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @ExpectStatements(max = 1) // DTO 조회 1번
     public void searchTest() throws Exception {
         // given
         // 팀 2개 생성, 저장
@@ -106,6 +114,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @ExpectStatements(max = 1) // DTO 조회 1번
     public void searchTest_where파라미터사용() throws Exception {
         // given
         // 팀 2개 생성, 저장
@@ -140,4 +149,120 @@ class MemberJpaRepositoryTest {
         // then
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    // team 로딩 방식별 쿼리 수 - 회원 10000명, 팀 100개
+    @Test
+    public void loadOptionsTest() throws Exception {
+        // given
+        Team[] teams = new Team[100];
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = new Team("team" + i);
+            em.persist(teams[i]);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            em.persist(new Member("member" + i, i % 100, teams[i % teams.length]));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(0);
+
+        // when, then
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl(MemberLoadOptions.lazy()))).isEqualTo(1 + 100); // N+1
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl(MemberLoadOptions.fetchJoin()))).isEqualTo(1);
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl(MemberLoadOptions.entityGraph()))).isEqualTo(1);
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl(MemberLoadOptions.batch(30)))).isEqualTo(1 + 4); // 100 / 30 올림
+
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.searchByWhere_returnEntity(condition, MemberLoadOptions.fetchJoin()))).isEqualTo(1);
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.searchByWhere_returnEntity(condition, MemberLoadOptions.entityGraph()))).isEqualTo(1);
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.searchByWhere_returnEntity(condition, MemberLoadOptions.batch(1000)))).isEqualTo(2);
+    }
+
+    // StatelessSession 내보내기 - 영속성 컨텍스트에 올라가지 않고, team은 같이 조회됨
+    @Test
+    public void exportTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 10 == 0 ? null : teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+
+        // when
+        List<Member> exported = new ArrayList<>();
+        long count = memberJpaRepository.export(condition, 7, exported::add); // fetch size가 결과보다 작아도 끝까지 읽음
+        long total = memberJpaRepository.exportAll(m -> {});
+
+        // then
+        assertThat(count).isEqualTo(50);
+        assertThat(exported).hasSize(50).allMatch(m -> m.getAge() >= 50);
+        assertThat(exported).noneMatch(em::contains); // 영속 상태 아님
+        assertThat(exported).filteredOn(m -> m.getTeam() != null)
+                .hasSize(45)
+                .allMatch(m -> "teamA".equals(m.getTeam().getName())); // fetch join - 지연 로딩 없이 읽힘
+        assertThat(total).isEqualTo(100);
+    }
+
+    // id 구간 chunk 조회 - chunk마다 영속성 컨텍스트 초기화, 수정 내용은 flush
+    @Test
+    public void forEachChunkTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        // when
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        List<Member> previous = new ArrayList<>();
+        long count = memberJpaRepository.forEachChunk(4, chunk -> {
+            assertThat(previous).noneMatch(em::contains); // 이전 chunk는 준영속
+            chunkSizes.add(chunk.size());
+            chunk.forEach(m -> {
+                ids.add(m.getId());
+                m.setAge(m.getAge() + 100);
+            });
+            previous.addAll(chunk);
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        List<Member> teamBMembers = new ArrayList<>();
+        long teamBCount = memberJpaRepository.forEachChunk(condition, 2, MemberLoadOptions.fetchJoin(), teamBMembers::addAll);
+
+        // then
+        assertThat(count).isEqualTo(10);
+        assertThat(chunkSizes).containsExactly(4, 4, 2);
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(memberJpaRepository.findAll()).allMatch(m -> m.getAge() >= 100); // chunk마다 flush 됨
+
+        assertThat(teamBCount).isEqualTo(5);
+        assertThat(teamBMembers).allMatch(m -> "teamB".equals(m.getTeam().getName()));
+    }
+
+    /**
+     * 조회 후 모든 회원의 팀 이름까지 읽었을 때 실행된 쿼리 수
+     */
+    private long statementsToLoadTeams(Supplier<List<Member>> finder) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Member> members = finder.get();
+        for (Member member : members) {
+            member.getTeam().getName(); // 직렬화 등에서 팀을 읽는 상황
+        }
+        assertThat(members).hasSize(10_000);
+
+        long count = statistics.getPrepareStatementCount();
+        em.clear(); // 다음 측정에 영향 없도록
+        return count;
+    }
+}
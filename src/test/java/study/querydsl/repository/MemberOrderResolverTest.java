@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class MemberOrderResolverTest {
+
+    MemberOrderResolver orderResolver = new MemberOrderResolver(100);
+
+    @Test
+    public void resolve() {
+        OrderSpecifier<?>[] orders = orderResolver.resolve(Sort.by(Sort.Order.desc("username")));
+
+        assertThat(orders).containsExactly(member.username.desc(), member.id.desc()); // id tie-breaker는 첫 정렬과 같은 방향
+    }
+
+    @Test
+    public void resolve_정렬없음() {
+        assertThat(orderResolver.resolve(Sort.unsorted())).containsExactly(member.id.asc());
+    }
+
+    @Test
+    public void resolve_id정렬이면_tieBreaker_생략() {
+        assertThat(orderResolver.resolve(Sort.by("teamName", "memberId"))).containsExactly(team.name.asc(), member.id.asc());
+    }
+
+    @Test
+    public void resolve_화이트리스트_아님() {
+        assertThatThrownBy(() -> orderResolver.resolve(Sort.by("team.id")))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void checkRowCount() {
+        // 인덱스 정렬은 count 조회 없이 통과
+        orderResolver.checkRowCount(Sort.by("age"), () -> {
+            throw new AssertionError("count should not be queried");
+        });
+
+        // 인덱스 없는 정렬은 기준치 이하만 허용
+        orderResolver.checkRowCount(Sort.by("teamName"), () -> 100);
+        assertThatThrownBy(() -> orderResolver.checkRowCount(Sort.by("age", "username"), () -> 101))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void isIndexed_방향이섞이면_인덱스못씀() {
+        assertThat(orderResolver.isIndexed(Sort.by(Sort.Order.desc("username"), Sort.Order.desc("memberId")))).isTrue();
+        assertThat(orderResolver.isIndexed(Sort.by(Sort.Order.asc("username"), Sort.Order.desc("memberId")))).isFalse();
+    }
+}
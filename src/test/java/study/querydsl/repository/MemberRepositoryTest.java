@@ -5,17 +5,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.support.ExpectStatements;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -26,9 +34,12 @@ class MemberRepositoryTest {
     EntityManager em; // Q. 지금 Test에서 em.find()이런 em을 사용하는 코드 없으니까 필요없는거 아냐? 실제로 주석처리하고 아래의 2개 테스트 돌리면 테스트 성공함.
 
     @Autowired MemberRepository memberRepository;
+    @Autowired MemberAgeHistogram ageHistogram;
+    @Autowired PlatformTransactionManager transactionManager;
 
     // 기본적인 만들어둔 함수들이 정상 작동하는지 확인하기 위한 테스트
     @Test
+    @ExpectStatements(max = 2) // findById는 영속성 컨텍스트에서, findAll + findByUsername
     public void basicTest() throws Exception {
         // given
         Member member = new Member("member1", 10);
@@ -48,6 +59,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @ExpectStatements(max = 1) // DTO 조회 1번
     public void searchTest() throws Exception {
         // given
         // 팀 2개 생성, 저장
@@ -84,6 +96,39 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @ExpectStatements(max = 1) // JDBC 조회 1번
+    public void searchColumnsTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40)); // 팀 없음
+
+        // when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        MemberTeamColumns result = memberRepository.searchColumns(condition);
+
+        // then
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.getTeamCount()).isEqualTo(2); // 팀 이름은 팀 수 만큼만 저장
+        for (int row = 0; row < result.size(); row++) {
+            if (result.getUsername(row).equals("member4")) {
+                assertThat(result.hasTeam(row)).isFalse();
+                assertThat(result.getTeamName(row)).isNull();
+            } else {
+                assertThat(result.getTeamName(row)).isEqualTo(result.getUsername(row).equals("member2") ? "teamA" : "teamB");
+            }
+        }
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // fetchResults - 컨텐츠 + count
     public void searchPageSimpleTest() throws Exception {
         // given
         // 팀 2개 생성, 저장
@@ -120,6 +165,120 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3"); // limit 3이니까
     }
 
+    @Test
+    @ExpectStatements(max = 2) // id + 컨텐츠, 마지막 페이지라 count 생략
+    public void searchPageDeferredJoinTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        // when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(1, 3), MemberPagingStrategy.DEFERRED_JOIN);
+
+        // then
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username").containsExactly("member4");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+    }
+
+    @Test
+    @ExpectStatements(max = 2) // id + fetch join, 첫 페이지가 size보다 작아서 count 생략
+    public void searchMemberPageTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        // when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        Page<Member> result = memberRepository.searchMemberPage(condition, PageRequest.of(0, 10));
+
+        // then
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(result.getContent().get(0).getTeam())).isTrue(); // fetch join
+    }
+
+    @Test
+    @ExpectStatements(max = 5) // age 정렬 : 컨텐츠 + count, teamName 정렬 : 기준치 확인 count(페이지 total에 재사용) + id + 컨텐츠
+    public void searchPageSortTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamB));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamB));
+        em.persist(new Member("member4", 40, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // when
+        Page<MemberTeamDto> byAge = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+        Page<MemberTeamDto> byTeam = memberRepository.searchPage(condition, PageRequest.of(0, 4, Sort.by("teamName")), MemberPagingStrategy.DEFERRED_JOIN);
+
+        // then
+        assertThat(byAge.getContent()).extracting("username").containsExactly("member4", "member3", "member2"); // 같은 나이는 id로 순서 고정 (desc)
+        assertThat(byTeam.getContent()).extracting("username").containsExactly("member2", "member4", "member1", "member3");
+    }
+
+    @Test
+    public void searchPageUnknownSortTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3, Sort.by("team.members"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    @ExpectStatements(max = 1) // 필드 조회 1번
+    public void searchFieldsTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+
+        // when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(10);
+        List<Map<String, Object>> result = memberRepository.searchFields(condition, MemberTeamField.of(List.of("username", "memberId", "teamId")));
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).containsExactly( // 요청 순서대로, 요청한 필드만
+                Map.entry("username", "member1"),
+                Map.entry("memberId", member1.getId()),
+                Map.entry("teamId", teamA.getId()));
+    }
+
+    @Test
+    public void searchFieldsUnknownFieldTest() throws Exception {
+        assertThatThrownBy(() -> MemberTeamField.of(List.of("username", "password")))
+                .isInstanceOf(UnsupportedFieldException.class);
+    }
+
     @Test
     public void querydslPredicateExecutorTest() throws Exception {
         // given
@@ -150,4 +309,83 @@ class MemberRepositoryTest {
             System.out.println("findMember = " + findMember);
         }
     }
-}
\ No newline at end of file
+
+    // 전체 개수 계산 방식 - 회원 6000명 (count cap 5000)
+    // histogram은 커밋된 값만 세므로 실제로 커밋하고 끝나면 삭제
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageCountModeTest() throws Exception {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 6000; i++) {
+                em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+        try {
+            rebuildHistogram();
+
+            // when, then - 쓰기 트랜잭션 안에서 조회 (histogram의 정확한 count 대신 각 방식으로 계산)
+            tx.executeWithoutResult(status -> assertCountModes());
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member").executeUpdate();
+                em.createQuery("delete from Team").executeUpdate();
+            });
+            rebuildHistogram(); // 벌크 삭제로 stale -> 다른 테스트를 위해 바로 다시 셈
+        }
+    }
+
+    private void assertCountModes() {
+        MemberSearchCondition all = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        ApproximatePage<MemberTeamDto> exact = memberRepository.searchPageApproximate(all, pageRequest, MemberCountMode.EXACT);
+        assertThat(exact.getTotalElements()).isEqualTo(6000);
+        assertThat(exact.isTotalApproximate()).isFalse();
+
+        ApproximatePage<MemberTeamDto> capped = memberRepository.searchPageApproximate(all, pageRequest, MemberCountMode.CAPPED);
+        assertThat(capped.getContent()).isEqualTo(exact.getContent());
+        assertThat(capped.getTotalElements()).isEqualTo(5001); // cap + 1 = 5000건 이상
+        assertThat(capped.isTotalApproximate()).isTrue();
+
+        PageRequest deepPage = PageRequest.of(550, 10); // offset + size > cap - 페이지 끝 + 1행까지만 셈
+        ApproximatePage<MemberTeamDto> cappedDeep = memberRepository.searchPageApproximate(all, deepPage, MemberCountMode.CAPPED);
+        assertThat(cappedDeep.getContent()).hasSize(10);
+        assertThat(cappedDeep.getTotalElements()).isEqualTo(5511); // 5510건 이상
+        assertThat(cappedDeep.isTotalApproximate()).isTrue();
+
+        PageRequest lastPage = PageRequest.of(599, 10); // 페이지 끝 뒤로 행이 없으면 정확한 값
+        ApproximatePage<MemberTeamDto> cappedLast = memberRepository.searchPageApproximate(all, lastPage, MemberCountMode.CAPPED);
+        assertThat(cappedLast.getTotalElements()).isEqualTo(6000);
+        assertThat(cappedLast.isTotalApproximate()).isFalse();
+
+        MemberSearchCondition teamACondition = new MemberSearchCondition();
+        teamACondition.setTeamName("teamA");
+        teamACondition.setAgeLoe(49);
+        ApproximatePage<MemberTeamDto> estimated = memberRepository.searchPageApproximate(teamACondition, pageRequest, MemberCountMode.ESTIMATED);
+        assertThat(estimated.getTotalElements()).isEqualTo(1500); // 쓰기 트랜잭션 안이라 정확한 값 대신 마지막으로 센 값
+        assertThat(estimated.isTotalApproximate()).isTrue();
+
+        teamACondition.setAgeLoe(4); // 나이별로 세므로 구간 일부도 그대로 - 0, 2, 4살
+        assertThat(memberRepository.searchPageApproximate(teamACondition, pageRequest, MemberCountMode.ESTIMATED).getTotalElements())
+                .isEqualTo(180);
+
+        MemberSearchCondition usernameCondition = new MemberSearchCondition();
+        usernameCondition.setUsername("member1"); // 히스토그램으로 추정 불가 -> CAPPED, 결과가 한 페이지라 정확한 값
+        ApproximatePage<MemberTeamDto> fallback = memberRepository.searchPageApproximate(usernameCondition, pageRequest, MemberCountMode.ESTIMATED);
+        assertThat(fallback.getTotalElements()).isEqualTo(1);
+        assertThat(fallback.isTotalApproximate()).isFalse();
+    }
+
+    private void rebuildHistogram() {
+        int attempts = 0;
+        while (!ageHistogram.rebuild() && ++attempts < 10) { // 주기적 재계산과 겹치면 다시
+        }
+        assertThat(ageHistogram.isStale()).isFalse();
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * chunk마다 커밋되는지 확인해야 해서 @Transactional 없이 실제로 커밋함 -> 끝나고 직접 삭제
+ */
+@SpringBootTest(properties = "member.import.chunk-size=2") // chunk 나눠지는 것 확인용으로 작게
+class MemberImportServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberImportService memberImportService;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void importCsv() throws Exception {
+        // given
+        String csv = "username,age,teamName\n" +
+                "member1,10,teamA\n" +
+                "member2,20,teamA\n" +
+                "\n" +
+                "member3,30,teamB\n" +
+                "member4,40,teamB\n" +
+                "member5,50,\n";
+
+        // when
+        MemberImportResult result = memberImportService.importCsv(new ByteArrayInputStream(csv.getBytes(UTF_8)));
+
+        // then
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(3);
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team order by m.username", Member.class)
+                .getResultList();
+        assertThat(members).extracting("username").containsExactly("member1", "member2", "member3", "member4", "member5");
+        assertThat(members.get(4).getTeam()).isNull();
+
+        List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+        assertThat(teams).extracting("name").containsExactlyInAnyOrder("teamA", "teamB"); // 팀은 이름별로 한번만 생성
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+        // given
+        String ndjson = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamA\"}\n" +
+                "{\"username\":\"member2\",\"age\":20,\"teamName\":\"teamA\"}\n" +
+                "{\"username\":\"member3\",\"age\":30}\n";
+
+        // when
+        MemberImportResult result = memberImportService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(UTF_8)));
+
+        // then
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getChunks()).isEqualTo(2);
+    }
+
+    @Test
+    public void importCsv_firstRowIsNotHeader() throws Exception {
+        // given - 이름이 username 으로 시작해도 헤더가 아님
+        String csv = "username1,10,teamA\n" +
+                "username2,20,teamA\n";
+
+        // when
+        MemberImportResult result = memberImportService.importCsv(new ByteArrayInputStream(csv.getBytes(UTF_8)));
+
+        // then
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(usernames()).containsExactly("username1", "username2");
+    }
+
+    @Test
+    public void importCsv_failureKeepsCommittedChunks() throws Exception {
+        // given - 4번째 줄 나이가 숫자가 아님 -> 두번째 chunk(member3, member4)에서 실패
+        String csv = "username,age\n" +
+                "member1,10\n" +
+                "member2,20\n" +
+                "member3,30\n" +
+                "member4,abc\n" +
+                "member5,50\n";
+
+        // when
+        assertThatThrownBy(() -> memberImportService.importCsv(new ByteArrayInputStream(csv.getBytes(UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 5");
+
+        // then - 첫번째 chunk는 커밋된 상태로 남음
+        assertThat(usernames()).containsExactly("member1", "member2");
+    }
+
+    private List<String> usernames() {
+        return em.createQuery("select m.username from Member m order by m.username", String.class).getResultList();
+    }
+}
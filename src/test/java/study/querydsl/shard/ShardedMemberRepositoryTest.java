@@ -0,0 +1,175 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.UnsupportedSortException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 샤드 3개 = 메모리 H2 3개 (application.yml의 member.shard.urls)
+ */
+@SpringBootTest(properties = "member.shard.enabled=true")
+class ShardedMemberRepositoryTest {
+
+    @Autowired ShardedMemberRepository shardedMemberRepository;
+    @Autowired MemberShardDataSources memberShardDataSources;
+
+    @BeforeEach
+    public void before() {
+        List<MemberImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String teamName = i % 10 == 9 ? null : "team" + (i % 5); // 10명 중 1명은 팀 없음
+            rows.add(new MemberImportRow("member" + (i % 20), i % 40, teamName));
+        }
+        shardedMemberRepository.saveAll(rows);
+    }
+
+    @AfterEach
+    public void after() {
+        shardedMemberRepository.deleteAll();
+    }
+
+    @Test
+    public void teamMembersAreStoredInTeamShard() {
+        List<MemberTeamDto> all = shardedMemberRepository.search(new MemberSearchCondition());
+
+        assertThat(all).hasSize(100);
+        assertThat(all).extracting(MemberTeamDto::getMemberId).isSorted(); // 기본 정렬 member.id 오름차순
+        assertThat(all.stream().map(dto -> shardedMemberRepository.shardOf(dto.getMemberId())).distinct())
+                .hasSize(shardedMemberRepository.getShardCount()); // 모든 샤드에 나눠 저장됨
+        for (MemberTeamDto dto : all) {
+            if (dto.getTeamId() != null) { // 회원은 팀과 같은 샤드
+                assertThat(shardedMemberRepository.shardOf(dto.getMemberId())).isEqualTo(shardedMemberRepository.shardOf(dto.getTeamId()));
+            }
+        }
+        assertThat(shardedMemberRepository.findById(all.get(0).getMemberId())).contains(all.get(0));
+    }
+
+    @Test
+    public void teamNameRoutesToOneShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(10);
+
+        List<MemberTeamDto> result = shardedMemberRepository.search(condition);
+
+        assertThat(result).isNotEmpty();
+        assertThat(result).allMatch(dto -> "team3".equals(dto.getTeamName()) && dto.getAge() >= 10);
+        assertThat(shardedMemberRepository.count(condition)).isEqualTo(result.size());
+
+        condition.setTeamName("noSuchTeam"); // 없는 팀 - 조회할 샤드 없음
+        assertThat(shardedMemberRepository.search(condition)).isEmpty();
+        assertThat(shardedMemberRepository.count(condition)).isZero();
+    }
+
+    @Test
+    public void scatterGatherPagesMatchSingleSort() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+        List<MemberTeamDto> all = shardedMemberRepository.search(condition);
+
+        for (Sort sort : List.of(Sort.unsorted(),
+                Sort.by(Sort.Direction.DESC, "age"),
+                Sort.by("username"),
+                Sort.by(Sort.Order.desc("teamName"), Sort.Order.asc("age")))) {
+            List<MemberTeamDto> expected = all.stream().sorted(comparator(sort)).collect(Collectors.toList());
+
+            List<MemberTeamDto> paged = new ArrayList<>();
+            Page<MemberTeamDto> page;
+            int pageNumber = 0;
+            do {
+                page = shardedMemberRepository.searchPage(condition, PageRequest.of(pageNumber++, 7, sort));
+                paged.addAll(page.getContent());
+                assertThat(page.getTotalElements()).isEqualTo(all.size()); // count는 샤드별 합
+            } while (page.hasNext());
+
+            assertThat(paged).as(sort.toString()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void concurrentCreateTeamInsertsOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> shardedMemberRepository.createTeam("newTeam")));
+            }
+            long teamId = futures.get(0).get();
+            for (Future<Long> future : futures) {
+                assertThat(future.get()).isEqualTo(teamId);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void teamNamesAreReloadedFromShards() {
+        long teamId = shardedMemberRepository.findTeamId("team3").orElseThrow();
+
+        // 재시작 - 같은 샤드 DB로 새로 만들면 team 테이블에서 다시 읽음
+        ShardedMemberRepository restarted = new ShardedMemberRepository(memberShardDataSources.getDataSources());
+        try {
+            assertThat(restarted.findTeamId("team3")).contains(teamId);
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("team3");
+            assertThat(restarted.count(condition)).isEqualTo(shardedMemberRepository.count(condition));
+        } finally {
+            restarted.destroy(); // 스레드풀만 종료, DataSource는 빈이 닫음
+        }
+        assertThat(shardedMemberRepository.search(new MemberSearchCondition())).hasSize(100); // 샤드 커넥션 풀은 그대로
+    }
+
+    @Test
+    public void unsupportedSort() {
+        assertThatThrownBy(() -> shardedMemberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 10, Sort.by("teamId"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    // 기대값 - 한 DB에서 정렬한 것과 같은 규칙 (null 먼저, desc면 null 나중, 마지막은 member.id)
+    private Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> result = (a, b) -> 0;
+        Sort.Direction last = Sort.Direction.ASC;
+        boolean first = true;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> next;
+            switch (order.getProperty()) {
+                case "age":
+                    next = Comparator.comparingInt(MemberTeamDto::getAge);
+                    break;
+                case "username":
+                    next = Comparator.comparing(MemberTeamDto::getUsername, Comparator.nullsFirst(Comparator.naturalOrder()));
+                    break;
+                default:
+                    next = Comparator.comparing(MemberTeamDto::getTeamName, Comparator.nullsFirst(Comparator.naturalOrder()));
+            }
+            result = result.thenComparing(order.isAscending() ? next : next.reversed());
+            if (first) {
+                last = order.getDirection();
+                first = false;
+            }
+        }
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        return result.thenComparing(last.isAscending() ? byId : byId.reversed());
+    }
+}
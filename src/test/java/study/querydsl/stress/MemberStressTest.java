@@ -0,0 +1,531 @@
+package study.querydsl.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.benchmark.BenchmarkFixture;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberAgeHistogram;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.ContextVariant;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드에서 MemberRepository, MemberJpaRepository, /v1 /v2 /v3 엔드포인트를 동시에 호출하는 부하 테스트
+ *   ./gradlew stress
+ *
+ * - 조회(검색, 페이징)와 변경(save, changeTeam, 벌크 나이 수정)을 섞어서 실행
+ * - 커넥션 풀 크기(ContextVariant)마다 클라이언트 스레드 수를 늘려가며 처리량, 지연시간 측정 -> 스케일링 곡선 (콘솔 + build/reports/stress)
+ * - 실행 중 : 페이지 크기/중복/전체 개수, 검색 결과가 조건에 맞는지 확인 (위반은 invariant 로 셈)
+ * - 단계마다 : JVM 데드락(ThreadMXBean), 끝나지 않는 스레드, 반납 안된 커넥션, DB 데드락 확인
+ * - 끝나고 : 전체 회원 수 = 처음 + 저장한 수, 팀별 개수(histogram, /v1 캐시, SQL)가 모두 같은지 확인
+ *
+ * 풀 고갈이 admission control 의 503 에 가려지지 않도록 admission 은 끔
+ * 커밋 후 이벤트(캐시, histogram 갱신)까지 거쳐야 해서 @Transactional 없이 실제로 커밋, 끝나면 삭제
+ */
+@Tag("stress")
+class MemberStressTest {
+
+    private static final int MEMBER_COUNT = 10_000;
+    private static final int TEAM_COUNT = 100; // save/changeTeam 이 팀의 members 컬렉션을 읽으므로 팀당 회원 수를 적게
+    private static final int PAGE_SIZE = 20;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration STEP = Duration.ofSeconds(10);
+    private static final Duration STUCK_TIMEOUT = Duration.ofSeconds(60); // 단계가 끝난 뒤 이 시간 안에 멈추지 않으면 멈춘 스레드로 봄
+    private static final int H2_DEADLOCK = 40001;
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    private static final Path REPORT_DIR = Paths.get("build", "reports", "stress");
+
+    @LocalServerPort int port;
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberAgeHistogram histogram;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired DataSource dataSource;
+    @Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    TransactionTemplate tx;
+    HikariPoolMXBean pool;
+    long[] memberIds;
+    long[] teamIds;
+    String[] teamNames;
+    List<Operation> operations;
+    AtomicLong saved = new AtomicLong(); // 커밋된 save 수 - 마지막 전체 개수 확인용
+    AtomicInteger sequence = new AtomicInteger();
+
+    static Stream<ContextVariant> poolSizes() {
+        return Stream.of(2, 8, 32).map(size -> ContextVariant.web("pool=" + size,
+                "spring.datasource.hikari.maximum-pool-size=" + size,
+                "spring.datasource.hikari.connection-timeout=2000",
+                "member.admission.enabled=false"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("poolSizes")
+    public void scaling(ContextVariant variant) throws Exception {
+        try (ConfigurableApplicationContext context = variant.start(this)) {
+            before();
+            try {
+                measure();
+            } finally {
+                after();
+            }
+        }
+    }
+
+    private void before() throws SQLException {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> BenchmarkFixture.insertMembers(em, MEMBER_COUNT, TEAM_COUNT));
+        tx.executeWithoutResult(status -> {
+            memberIds = em.createQuery("select m.id from Member m", Long.class).getResultStream().mapToLong(Long::longValue).toArray();
+            List<Team> teams = em.createQuery("select t from Team t order by t.id", Team.class).getResultList();
+            teamIds = teams.stream().mapToLong(Team::getId).toArray();
+            teamNames = teams.stream().map(Team::getName).toArray(String[]::new);
+        });
+        rebuildHistogram();
+        pool = dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean() : null;
+        operations = operations();
+    }
+
+    private void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        rebuildHistogram();
+    }
+
+    private void measure() throws Exception {
+        run(4, WARMUP); // 워밍업 - 결과는 버림
+
+        List<String> lines = new ArrayList<>();
+        lines.add("poolSize,threads,ops,opsPerSecond,speedup,p50Millis,p99Millis,maxMillis,"
+                + "maxAwaitingConnection,poolTimeouts,lockTimeouts,dbDeadlocks,http5xx,invariantViolations,otherErrors");
+        System.out.println(lines.get(0));
+
+        List<Step> steps = new ArrayList<>();
+        double baseline = 0;
+        for (int threads : THREADS) {
+            Step step = run(threads, STEP);
+            steps.add(step);
+            double opsPerSecond = step.ops.sum() / (double) STEP.getSeconds();
+            if (baseline == 0) {
+                baseline = opsPerSecond;
+            }
+            String line = String.format("%d,%d,%d,%.1f,%.2f,%.1f,%.1f,%.1f,%d,%d,%d,%d,%d,%d,%d", poolSize, threads,
+                    step.ops.sum(), opsPerSecond, baseline == 0 ? 0 : opsPerSecond / baseline,
+                    step.percentileMillis(0.50), step.percentileMillis(0.99), step.percentileMillis(1.0),
+                    step.maxAwaitingConnection.get(), step.errors(Failure.POOL_TIMEOUT), step.errors(Failure.LOCK_TIMEOUT),
+                    step.errors(Failure.DB_DEADLOCK), step.errors(Failure.HTTP_5XX), step.errors(Failure.INVARIANT),
+                    step.errors(Failure.OTHER));
+            lines.add(line);
+            System.out.println(line);
+            step.printFailures();
+        }
+        writeReport(lines);
+
+        for (Step step : steps) {
+            assertThat(step.jvmDeadlock.get()).as("JVM 데드락 (threads=%d)", step.threads).isFalse();
+            assertThat(step.stuck).as("끝나지 않은 스레드 (threads=%d)", step.threads).isFalse();
+            assertThat(step.leakedConnections).as("반납 안된 커넥션 (threads=%d)", step.threads).isZero();
+            assertThat(step.errors(Failure.DB_DEADLOCK)).as("DB 데드락 (threads=%d)", step.threads).isZero();
+            assertThat(step.errors(Failure.INVARIANT)).as("페이지/개수 불일치 (threads=%d)", step.threads).isZero();
+        }
+        verifyCounts();
+    }
+
+    /**
+     * 조회 : 변경 = 대략 8 : 2
+     */
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("v1", 20, random -> { // 캐시가 동작하도록 일부 팀에 몰림
+                    String teamName = teamNames[random.nextInt(5)];
+                    JsonNode rows = get("/v1/members?teamName=" + teamName);
+                    for (JsonNode row : rows) {
+                        check(teamName.equals(row.get("teamName").asText()), "v1 teamName=%s 결과에 %s", teamName, row.get("teamName"));
+                    }
+                }),
+                new Operation("v2", 15, random -> {
+                    int page = random.nextInt(MEMBER_COUNT / PAGE_SIZE);
+                    JsonNode body = get("/v2/members?page=" + page + "&size=" + PAGE_SIZE);
+                    checkPage("v2", page, ids(body.get("content")), body.get("totalElements").asLong());
+                }),
+                new Operation("v3", 15, random -> {
+                    int ageGoe = random.nextInt(90);
+                    JsonNode body = get("/v3/members?teamName=" + teamNames[random.nextInt(TEAM_COUNT)]
+                            + "&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10) + "&page=0&size=" + PAGE_SIZE);
+                    List<Long> ids = ids(body.get("content"));
+                    check(ids.size() <= PAGE_SIZE, "v3 페이지 크기 %d", ids.size());
+                    check(new HashSet<>(ids).size() == ids.size(), "v3 페이지 안에 중복 id %s", ids);
+                }),
+                new Operation("repository.searchPageComplex", 10, random -> {
+                    int page = random.nextInt(MEMBER_COUNT / PAGE_SIZE);
+                    Page<MemberTeamDto> result = memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(page, PAGE_SIZE));
+                    List<Long> ids = new ArrayList<>();
+                    result.getContent().forEach(dto -> ids.add(dto.getMemberId()));
+                    checkPage("repository.searchPageComplex", page, ids, result.getTotalElements());
+                }),
+                new Operation("repository.search", 10, random -> {
+                    String teamName = teamNames[random.nextInt(TEAM_COUNT)];
+                    for (MemberTeamDto dto : memberRepository.search(condition(teamName, null, null))) {
+                        check(teamName.equals(dto.getTeamName()), "search teamName=%s 결과에 %s", teamName, dto.getTeamName());
+                    }
+                }),
+                new Operation("jpaRepository.searchByWhere", 10, random -> {
+                    int ageGoe = random.nextInt(90);
+                    for (MemberTeamDto dto : memberJpaRepository.searchByWhere(condition(null, ageGoe, ageGoe + 10))) {
+                        check(dto.getAge() >= ageGoe && dto.getAge() <= ageGoe + 10, "searchByWhere age %d~%d 결과에 %d", ageGoe, ageGoe + 10, dto.getAge());
+                    }
+                }),
+                new Operation("save", 8, random -> {
+                    long teamId = teamIds[random.nextInt(TEAM_COUNT)];
+                    tx.executeWithoutResult(status -> memberJpaRepository.save(
+                            new Member("stress" + sequence.incrementAndGet(), random.nextInt(100), em.find(Team.class, teamId))));
+                    saved.incrementAndGet();
+                }),
+                new Operation("changeTeam", 10, random -> {
+                    long memberId = memberIds[random.nextInt(memberIds.length)];
+                    long teamId = teamIds[random.nextInt(TEAM_COUNT)];
+                    tx.executeWithoutResult(status -> memberRepository.findById(memberId)
+                            .ifPresent(member -> member.changeTeam(em.find(Team.class, teamId))));
+                }),
+                new Operation("bulkAddAge", 2, random -> { // 팀 하나의 나이를 +1 또는 -1 (나이가 한쪽으로 계속 커지지 않게)
+                    String teamName = teamNames[random.nextInt(TEAM_COUNT)];
+                    int amount = random.nextBoolean() ? 1 : -1;
+                    tx.executeWithoutResult(status -> memberJpaRepository.bulkAddAge(condition(teamName, null, null), amount));
+                })
+        );
+    }
+
+    /**
+     * threads개 스레드가 duration 동안 가중치대로 뽑은 작업을 쉬지 않고 실행
+     */
+    private Step run(int threads, Duration duration) throws Exception {
+        Step step = new Step(threads);
+        int totalWeight = operations.stream().mapToInt(operation -> operation.weight).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        monitor.scheduleAtFixedRate(() -> step.sample(pool, threadMXBean), 0, 100, TimeUnit.MILLISECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> work(step, deadline, totalWeight)));
+        }
+        executor.shutdown();
+        step.stuck = !executor.awaitTermination(duration.plus(STUCK_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS);
+        monitor.shutdownNow();
+
+        if (step.stuck) {
+            System.out.println("끝나지 않은 스레드 (threads=" + threads + ")");
+            printThreadDump(threadMXBean.dumpAllThreads(true, true));
+            executor.shutdownNow();
+        } else {
+            List<long[]> latencies = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                latencies.add(future.get());
+            }
+            step.latencies = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        }
+        step.leakedConnections = awaitIdleConnections();
+        return step;
+    }
+
+    private long[] work(Step step, long deadline, int totalWeight) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LongStream.Builder latencies = LongStream.builder();
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            long start = System.nanoTime();
+            try {
+                operation.action.run(random);
+                latencies.add(System.nanoTime() - start);
+                step.ops.increment();
+            } catch (Throwable e) {
+                step.fail(operation.name, classify(e), e);
+            }
+        }
+        return latencies.build().toArray();
+    }
+
+    private Operation pick(int value) {
+        for (Operation operation : operations) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * 작업이 모두 끝난 뒤 커넥션이 풀로 돌아오는지 - 5초 안에 안 돌아오면 그 수를 반환
+     */
+    private int awaitIdleConnections() throws InterruptedException {
+        if (pool == null) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getActiveConnections() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        return pool.getActiveConnections();
+    }
+
+    /**
+     * 변경이 모두 끝난 뒤 : 전체 개수 = 처음 + 저장 수, 팀별 개수는 histogram(searchPageComplex), /v1 캐시, SQL 모두 같아야 함
+     */
+    private void verifyCounts() throws Exception {
+        rebuildHistogram(); // 벌크 나이 수정으로 stale -> 다시 세서 histogram 경로로 확인
+        long total = memberRepository.count();
+        assertThat(total).as("전체 회원 수").isEqualTo(MEMBER_COUNT + saved.get());
+
+        long sum = 0;
+        for (String teamName : teamNames) {
+            MemberSearchCondition condition = condition(teamName, null, null);
+            long sqlCount = memberJpaRepository.searchByWhere(condition).size();
+            long pageTotal = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)).getTotalElements();
+            int v1Count = get("/v1/members?teamName=" + teamName).size();
+            assertThat(pageTotal).as("%s searchPageComplex total", teamName).isEqualTo(sqlCount);
+            assertThat(v1Count).as("%s /v1 결과 수", teamName).isEqualTo(sqlCount);
+            sum += sqlCount;
+        }
+        assertThat(sum).as("팀별 회원 수 합계").isEqualTo(total);
+    }
+
+    /**
+     * 다시 세는 동안 변경 이벤트(앞 단계의 커밋 후 처리 등)가 있으면 rebuild가 false - 성공할 때까지 다시
+     */
+    private void rebuildHistogram() {
+        int attempts = 0;
+        while (!histogram.rebuild() && ++attempts < 10) {
+        }
+        assertThat(histogram.isStale()).as("histogram stale").isFalse();
+    }
+
+    /**
+     * 삭제가 없으므로 전체 개수는 처음 개수 이상, 처음 개수 안쪽의 페이지는 항상 꽉 차 있어야 함
+     */
+    private static void checkPage(String name, int page, List<Long> ids, long total) {
+        long offset = (long) page * PAGE_SIZE;
+        check(ids.size() <= PAGE_SIZE, "%s 페이지 크기 %d", name, ids.size());
+        check(new HashSet<>(ids).size() == ids.size(), "%s 페이지 안에 중복 id %s", name, ids);
+        check(offset + PAGE_SIZE > MEMBER_COUNT || ids.size() == PAGE_SIZE, "%s page=%d 크기 %d", name, page, ids.size());
+        check(total >= MEMBER_COUNT && total >= offset + ids.size(), "%s page=%d 크기 %d 인데 totalElements %d", name, page, ids.size(), total);
+    }
+
+    private static void check(boolean condition, String format, Object... args) {
+        if (!condition) {
+            throw new AssertionError(String.format(format, args));
+        }
+    }
+
+    private JsonNode get(String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + pathAndQuery))
+                .timeout(Duration.ofSeconds(30)).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 500) {
+            throw new HttpServerError(response.statusCode(), pathAndQuery);
+        }
+        check(response.statusCode() == 200, "%s 응답 %d", pathAndQuery, response.statusCode());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<Long> ids(JsonNode content) {
+        List<Long> ids = new ArrayList<>();
+        content.forEach(row -> ids.add(row.get("memberId").asLong()));
+        return ids;
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private static Failure classify(Throwable e) {
+        if (e instanceof AssertionError) {
+            return Failure.INVARIANT;
+        }
+        if (e instanceof HttpServerError) {
+            return Failure.HTTP_5XX;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) { // hikari connection-timeout 안에 커넥션을 못 받음
+                return Failure.POOL_TIMEOUT;
+            }
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == H2_DEADLOCK) {
+                return Failure.DB_DEADLOCK;
+            }
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == H2_LOCK_TIMEOUT) {
+                return Failure.LOCK_TIMEOUT;
+            }
+        }
+        return Failure.OTHER;
+    }
+
+    private static void printThreadDump(ThreadInfo[] threads) {
+        for (ThreadInfo thread : threads) {
+            System.out.print(thread);
+        }
+    }
+
+    private void writeReport(List<String> lines) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Files.write(REPORT_DIR.resolve("scaling-pool" + poolSize + ".csv"), lines);
+    }
+
+    enum Failure {
+        POOL_TIMEOUT, LOCK_TIMEOUT, DB_DEADLOCK, HTTP_5XX, INVARIANT, OTHER
+    }
+
+    @FunctionalInterface
+    interface Action {
+        void run(ThreadLocalRandom random) throws Exception;
+    }
+
+    private static class Operation {
+        final String name;
+        final int weight;
+        final Action action;
+
+        Operation(String name, int weight, Action action) {
+            this.name = name;
+            this.weight = weight;
+            this.action = action;
+        }
+    }
+
+    private static class HttpServerError extends RuntimeException {
+        HttpServerError(int status, String pathAndQuery) {
+            super(pathAndQuery + " 응답 " + status);
+        }
+    }
+
+    /**
+     * 한 단계(스레드 수 하나)의 결과
+     */
+    private static class Step {
+        private static final int MAX_FAILURE_SAMPLES = 10;
+
+        final int threads;
+        final LongAdder ops = new LongAdder();
+        final Map<Failure, LongAdder> errors = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> errorsByOperation = new ConcurrentHashMap<>();
+        final Queue<String> failureSamples = new ConcurrentLinkedQueue<>();
+        final AtomicInteger maxAwaitingConnection = new AtomicInteger();
+        final AtomicBoolean jvmDeadlock = new AtomicBoolean();
+        long[] latencies = new long[0];
+        boolean stuck;
+        int leakedConnections;
+
+        Step(int threads) {
+            this.threads = threads;
+        }
+
+        void fail(String operation, Failure failure, Throwable e) {
+            errors.computeIfAbsent(failure, key -> new LongAdder()).increment();
+            errorsByOperation.computeIfAbsent(operation + ":" + failure, key -> new LongAdder()).increment();
+            if (failureSamples.size() < MAX_FAILURE_SAMPLES) {
+                failureSamples.add(operation + " " + failure + " " + e);
+            }
+        }
+
+        long errors(Failure failure) {
+            LongAdder count = errors.get(failure);
+            return count == null ? 0 : count.sum();
+        }
+
+        /**
+         * 커넥션 대기 스레드 수 최대값, JVM 데드락 확인 (100ms 마다)
+         */
+        void sample(HikariPoolMXBean pool, ThreadMXBean threadMXBean) {
+            if (pool != null) {
+                maxAwaitingConnection.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+            }
+            long[] deadlocked = threadMXBean.findDeadlockedThreads();
+            if (deadlocked != null && jvmDeadlock.compareAndSet(false, true)) {
+                System.out.println("JVM 데드락 (threads=" + threads + ")");
+                printThreadDump(threadMXBean.getThreadInfo(deadlocked, true, true));
+            }
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000d;
+        }
+
+        void printFailures() {
+            if (!errorsByOperation.isEmpty()) {
+                System.out.println("  errors " + errorsByOperation);
+                failureSamples.forEach(sample -> System.out.println("  " + sample));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.support;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * 설정값만 다른 스프링 컨텍스트로 같은 측정을 반복 (커넥션 풀 크기, allocation size, admission on/off 등)
+ *
+ * 설정마다 @SpringBootTest 하위 클래스를 만드는 대신 @ParameterizedTest @MethodSource 로 변형 목록을 넘기고
+ * 테스트 안에서 try (ConfigurableApplicationContext context = variant.start(this)) 로 컨텍스트를 띄움.
+ * - 설정은 커맨드라인 인자로 넘김 -> application.yml 보다 우선
+ * - 테스트 인스턴스의 @Autowired, @Value, @LocalServerPort 를 주입 (스프링 테스트 컨텍스트 캐시, @Transactional 은 적용 안됨)
+ * - 웹 서버는 임의 포트, SQL 로그는 끔 (측정에 영향)
+ */
+public final class ContextVariant {
+
+    private static final String[] COMMON = {"server.port=0", "logging.level.org.hibernate.SQL=info"};
+
+    private final String name;
+    private final WebApplicationType webApplicationType;
+    private final String[] properties;
+
+    private ContextVariant(String name, WebApplicationType webApplicationType, String[] properties) {
+        this.name = name;
+        this.webApplicationType = webApplicationType;
+        this.properties = properties;
+    }
+
+    /**
+     * 서버 없이 (MockMvc, HTTP 요청이 필요 없는 측정)
+     */
+    public static ContextVariant of(String name, String... properties) {
+        return new ContextVariant(name, WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * 임의 포트로 서버를 띄움 (@LocalServerPort)
+     */
+    public static ContextVariant web(String name, String... properties) {
+        return new ContextVariant(name, WebApplicationType.SERVLET, properties);
+    }
+
+    /**
+     * 컨텍스트를 띄우고 testInstance 에 빈 주입 - 닫는 건 호출한 쪽에서 (try-with-resources)
+     */
+    public ConfigurableApplicationContext start(Object testInstance) {
+        String[] args = Stream.concat(Arrays.stream(COMMON), Arrays.stream(properties))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(webApplicationType)
+                .run(args);
+        try {
+            context.getAutowireCapableBeanFactory().autowireBean(testInstance);
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+        return context;
+    }
+
+    @Override
+    public String toString() { // @ParameterizedTest 표시 이름
+        return name;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 실행 중 select 쿼리 수 상한 - 넘으면 테스트 실패 (N+1 회귀 방지)
+ *
+ * given 단계의 insert, 시퀀스 호출은 id 할당/배치 설정에 따라 달라지므로 세지 않고 select만 셈.
+ * @BeforeEach 에서 실행된 쿼리는 포함되지 않음.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface ExpectStatements {
+
+    int max();
+}
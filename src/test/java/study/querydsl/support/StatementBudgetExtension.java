@@ -0,0 +1,37 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @ExpectStatements 처리 - 테스트 메서드 전후로 StatementCounter 시작/종료
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        StatementCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<String> selects = StatementCounter.stop();
+        if (context.getExecutionException().isPresent()) {
+            return; // 이미 실패한 테스트는 원래 실패 원인을 그대로 보여줌
+        }
+
+        Optional<ExpectStatements> budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), ExpectStatements.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), ExpectStatements.class));
+        budget.ifPresent(expect -> {
+            if (selects.size() > expect.max()) {
+                throw new AssertionError("select 쿼리 " + selects.size() + "번 실행, 허용: " + expect.max() + "번\n"
+                        + String.join("\n", selects));
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * p6spy 리스너 - 테스트 스레드에서 실행된 select 문을 셈
+ *
+ * p6spy-spring-boot-starter가 JdbcEventListener 타입의 빈을 찾아서 등록해줌.
+ * start() ~ stop() 사이에 같은 스레드에서 실행된 것만 셈 (MockMvc 요청도 같은 스레드에서 처리됨)
+ */
+@Component
+public class StatementCounter extends SimpleJdbcEventListener {
+
+    private static final int MAX_RECORDED_SQL = 50;
+    private static final ThreadLocal<List<String>> SELECTS = new ThreadLocal<>();
+
+    public static void start() {
+        SELECTS.set(new ArrayList<>());
+    }
+
+    /**
+     * start() 이후 실행된 select 문
+     */
+    public static List<String> stop() {
+        List<String> selects = SELECTS.get();
+        SELECTS.remove();
+        return selects == null ? List.of() : selects;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> selects = SELECTS.get();
+        if (selects == null) {
+            return;
+        }
+        String sql = stripComments(statementInformation.getSql());
+        if (sql.regionMatches(true, 0, "select", 0, "select".length())) {
+            selects.add(selects.size() < MAX_RECORDED_SQL ? sql : "...");
+        }
+    }
+
+    /**
+     * use_sql_comments 설정으로 앞에 붙는 JPQL 주석 제거
+     */
+    private static String stripComments(String sql) {
+        String stripped = sql.trim();
+        while (stripped.startsWith("/*")) {
+            int end = stripped.indexOf("*/");
+            if (end < 0) {
+                break;
+            }
+            stripped = stripped.substring(end + 2).trim();
+        }
+        return stripped;
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.warmup.enabled=true", "member.warmup.iterations=1"})
+class MemberSearchWarmupTest {
+
+    @Autowired MemberSearchWarmup memberSearchWarmup;
+
+    @Test
+    public void warmupRunsBeforeContextIsReady() {
+        // 컨텍스트가 뜨면서(ApplicationRunner) 이미 실행됨
+        WarmupReport report = memberSearchWarmup.getReport();
+
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getFailedQueries()).isZero();
+        assertThat(report.getExecutedQueries()).isEqualTo(15 * (2 + 4 * 3)); // 조건 조합 15(조건 없음 제외) x (정렬 없는 /v1 2개 + 정렬 4가지 x 페이징 3개)
+    }
+}